@@ -0,0 +1,80 @@
+#!/bin/bash
+
+# Compares cold start of the standard jar against the fast-startup build (Spring AOT + CDS).
+# Reports time to the first successful request and resident memory after that request.
+# Requires PostgreSQL to be running: docker-compose up -d postgres
+
+set -e
+
+RUNS=${RUNS:-5}
+PORT=${BENCH_PORT:-8089}
+WORK_DIR=${TMPDIR:-/tmp}/startup-benchmark
+PROBE_URL=http://localhost:${PORT}/api/test/public
+
+now_ms() {
+    python3 -c 'import time; print(int(time.time() * 1000))'
+}
+
+measure() {
+    local label=$1
+    shift
+    local total_ms=0
+    local total_rss=0
+
+    for run in $(seq 1 $RUNS); do
+        local start=$(now_ms)
+        "$@" --server.port=${PORT} > ${WORK_DIR}/${label}.log 2>&1 &
+        local pid=$!
+
+        until curl -sf -o /dev/null ${PROBE_URL}; do
+            if ! kill -0 $pid 2> /dev/null; then
+                echo "❌ ${label} exited during startup, see ${WORK_DIR}/${label}.log"
+                exit 1
+            fi
+            sleep 0.05
+        done
+
+        local elapsed=$(( $(now_ms) - start ))
+        local rss_kb=$(ps -o rss= -p $pid | tr -d ' ')
+        kill $pid
+        wait $pid 2> /dev/null || true
+
+        echo "  ${label} run ${run}: ${elapsed} ms, RSS $(( rss_kb / 1024 )) MB"
+        total_ms=$(( total_ms + elapsed ))
+        total_rss=$(( total_rss + rss_kb ))
+    done
+
+    printf "%-14s avg time-to-first-request %6d ms   avg RSS %5d MB\n" \
+        "${label}" $(( total_ms / RUNS )) $(( total_rss / RUNS / 1024 ))  >> ${WORK_DIR}/summary.txt
+}
+
+rm -rf ${WORK_DIR}
+mkdir -p ${WORK_DIR}
+
+echo "🔧 Building standard jar..."
+mvn -q clean package -DskipTests
+cp target/*.jar ${WORK_DIR}/standard.jar
+
+echo "🔧 Building fast-startup jar (Spring AOT)..."
+mvn -q clean package -DskipTests -Pfast-startup
+mkdir -p ${WORK_DIR}/optimized/exploded
+cp target/*.jar ${WORK_DIR}/optimized/app-fat.jar
+
+# Same layout as Dockerfile.fast-startup
+(cd ${WORK_DIR}/optimized/exploded && jar -xf ../app-fat.jar)
+jar -cf ${WORK_DIR}/optimized/app.jar -C ${WORK_DIR}/optimized/exploded/BOOT-INF/classes .
+mv ${WORK_DIR}/optimized/exploded/BOOT-INF/lib ${WORK_DIR}/optimized/lib
+OPTIMIZED_CP="${WORK_DIR}/optimized/app.jar:${WORK_DIR}/optimized/lib/*"
+
+echo "🔧 Training run for the CDS archive..."
+java -XX:ArchiveClassesAtExit=${WORK_DIR}/optimized/app.jsa -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh -cp "${OPTIMIZED_CP}" com.example.springjooqapi.Application \
+    > ${WORK_DIR}/training.log 2>&1
+
+echo "⏱️  Measuring ${RUNS} runs each..."
+measure standard java -jar ${WORK_DIR}/standard.jar
+measure optimized java -XX:SharedArchiveFile=${WORK_DIR}/optimized/app.jsa -Dspring.aot.enabled=true \
+    -cp "${OPTIMIZED_CP}" com.example.springjooqapi.Application
+
+echo ""
+cat ${WORK_DIR}/summary.txt
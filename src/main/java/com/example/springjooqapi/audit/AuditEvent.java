@@ -0,0 +1,13 @@
+package com.example.springjooqapi.audit;
+
+import java.time.LocalDateTime;
+
+// One mutation: who (userId, null for anonymous attempts), what (action on an entity) and when
+public record AuditEvent(
+        Long userId,
+        String action,
+        String entityType,
+        Long entityId,
+        String details,
+        LocalDateTime occurredAt) {
+}
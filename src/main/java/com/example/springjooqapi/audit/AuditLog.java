@@ -0,0 +1,269 @@
+package com.example.springjooqapi.audit;
+
+import com.example.springjooqapi.sharding.ShardRouter;
+import com.example.springjooqapi.util.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.example.springjooqapi.jooq.Tables.AUDIT_LOG;
+
+/**
+ * Write-behind audit trail. Request threads put events into a lock-free ring buffer and
+ * return; one writer thread inserts them into audit_log on the primary with a multi-row
+ * INSERT once audit.batch-size events are waiting or the oldest has waited
+ * audit.flush-interval-ms. Memory is bounded by the ring; what happens when it is full is
+ * the audit.overflow-policy. On shutdown the writer drains the ring before the pools close.
+ */
+@Service
+public class AuditLog implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final int MAX_DETAILS_LENGTH = 500;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30_000;
+
+    private final ShardRouter shardRouter;
+    private final MpscRingBuffer<AuditEvent> buffer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final long shutdownTimeoutMillis;
+
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean accepting = true;
+    // record() calls between reading accepting and finishing their offer; stop() waits for them
+    private final AtomicInteger producers = new AtomicInteger();
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public AuditLog(
+            ShardRouter shardRouter,
+            MeterRegistry registry,
+            @Value("${audit.enabled:true}") boolean enabled,
+            @Value("${audit.buffer-capacity:8192}") int bufferCapacity,
+            @Value("${audit.batch-size:500}") int batchSize,
+            @Value("${audit.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${audit.overflow-policy:DROP}") AuditOverflowPolicy overflowPolicy,
+            @Value("${audit.block-timeout-ms:50}") long blockTimeoutMillis,
+            @Value("${audit.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this.shardRouter = shardRouter;
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.enabled = enabled;
+        // Six bind values per row; Postgres allows 65535 per statement
+        this.batchSize = Math.max(1, Math.min(batchSize, 10_000));
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        this.enqueued = registry.counter("audit.events", "outcome", "enqueued");
+        this.dropped = registry.counter("audit.events", "outcome", "dropped");
+        this.written = registry.counter("audit.events", "outcome", "written");
+        this.failed = registry.counter("audit.events", "outcome", "failed");
+        this.flushTimer = Timer.builder("audit.flush")
+                .description("Time to insert one batch of audit events")
+                .register(registry);
+        this.batchSizes = DistributionSummary.builder("audit.batch.size")
+                .description("Audit events per insert")
+                .register(registry);
+        registry.gauge("audit.buffer.size", Tags.empty(), buffer, MpscRingBuffer::size);
+    }
+
+    public void record(Long userId, String action, String entityType, Long entityId, String details) {
+        if (!enabled) {
+            return;
+        }
+        if (details != null && details.length() > MAX_DETAILS_LENGTH) {
+            details = details.substring(0, MAX_DETAILS_LENGTH);
+        }
+        AuditEvent event = new AuditEvent(userId, action, entityType, entityId, details, LocalDateTime.now());
+
+        producers.incrementAndGet();
+        try {
+            if (accepting) {
+                enqueue(event);
+                return;
+            }
+        } finally {
+            producers.decrementAndGet();
+        }
+        // Shutting down: the ring may already have been drained for the last time
+        writeNow(List.of(event));
+    }
+
+    private void enqueue(AuditEvent event) {
+        if (buffer.offer(event)) {
+            enqueued.increment();
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writer);
+            }
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP -> dropped.increment();
+            case BLOCK -> offerWithin(event, blockTimeoutNanos);
+            case SYNC -> writeNow(List.of(event));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        accepting = true;
+        running = true;
+        Thread thread = new Thread(this::runWriter, "audit-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        // From here on events are written on the caller's thread instead of being buffered
+        accepting = false;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("Audit writer did not drain within {} ms, {} events may be lost", shutdownTimeoutMillis, buffer.size());
+            return;
+        }
+        // Producers that saw accepting before it was cleared may still be offering
+        while (producers.get() != 0) {
+            Thread.onSpinWait();
+        }
+        // The writer has exited, so this thread may consume: pick up events offered while it finished
+        List<AuditEvent> remaining = new ArrayList<>();
+        buffer.drain(remaining::add, Integer.MAX_VALUE);
+        if (!remaining.isEmpty()) {
+            writeNow(remaining);
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server (lower phases stop later), so requests still in flight get audited
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runWriter() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long batchStartedAt = 0;
+        long backoffMillis = 1000;
+
+        while (true) {
+            boolean stopping = !running;
+            buffer.drain(batch::add, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+            if (batchStartedAt == 0) {
+                batchStartedAt = System.nanoTime();
+            }
+
+            long waited = System.nanoTime() - batchStartedAt;
+            if (batch.size() < batchSize && waited < flushIntervalNanos && !stopping) {
+                LockSupport.parkNanos(this, flushIntervalNanos - waited);
+                continue;
+            }
+
+            if (write(batch)) {
+                batch.clear();
+                batchStartedAt = 0;
+                backoffMillis = 1000;
+            } else if (stopping) {
+                failed.increment(batch.size());
+                batch.clear();
+            } else {
+                // Keep the batch and retry; meanwhile the ring fills and the overflow policy applies
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+                backoffMillis = Math.min(backoffMillis * 2, MAX_RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void offerWithin(AuditEvent event, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        LockSupport.unpark(writer);
+        while (System.nanoTime() - deadline < 0) {
+            if (buffer.offer(event)) {
+                enqueued.increment();
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        dropped.increment();
+    }
+
+    private void writeNow(List<AuditEvent> events) {
+        if (!write(events)) {
+            failed.increment(events.size());
+        }
+    }
+
+    // One multi-row INSERT for the whole batch
+    private boolean write(List<AuditEvent> events) {
+        long start = System.nanoTime();
+        try {
+            var insert = shardRouter.directory().insertInto(AUDIT_LOG,
+                    AUDIT_LOG.USER_ID, AUDIT_LOG.ACTION, AUDIT_LOG.ENTITY_TYPE,
+                    AUDIT_LOG.ENTITY_ID, AUDIT_LOG.DETAILS, AUDIT_LOG.OCCURRED_AT);
+            for (AuditEvent event : events) {
+                insert = insert.values(event.userId(), event.action(), event.entityType(),
+                        event.entityId(), event.details(), event.occurredAt());
+            }
+            insert.execute();
+            written.increment(events.size());
+            batchSizes.record(events.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Writing {} audit events failed: {}", events.size(), e.getMessage());
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.springjooqapi.audit;
+
+// What recording does when the audit buffer is full (the writer is behind or the database is down)
+public enum AuditOverflowPolicy {
+    // Drop the event and count it; never slows the request down
+    DROP,
+    // Wait up to audit.block-timeout-ms for space, then drop
+    BLOCK,
+    // Write the event in the calling thread; nothing is lost, at one extra round trip per event
+    SYNC
+}
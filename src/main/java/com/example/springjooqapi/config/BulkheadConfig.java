@@ -0,0 +1,50 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.metrics.RequestContextTaskDecorator;
+import com.example.springjooqapi.util.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+@Configuration
+public class BulkheadConfig {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    public BulkheadConfig(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead itemsBulkhead() {
+        return bulkhead("items", 20, 100, Duration.ofSeconds(5));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead profileBulkhead() {
+        return bulkhead("profile", 10, 50, Duration.ofSeconds(10));
+    }
+
+    // BCrypt hashing makes login/registration CPU bound; keep this group small
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead authBulkhead() {
+        return bulkhead("auth", 8, 100, Duration.ofSeconds(5));
+    }
+
+    private Bulkhead bulkhead(String name, int maxThreads, int queueCapacity, Duration timeout) {
+        String prefix = "bulkhead." + name + ".";
+        return new Bulkhead(
+                name,
+                environment.getProperty(prefix + "max-threads", Integer.class, maxThreads),
+                environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity),
+                environment.getProperty(prefix + "timeout", Duration.class, timeout),
+                meterRegistry,
+                new RequestContextTaskDecorator()
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.metrics.ConnectionAcquireTimingDataSource;
+import com.example.springjooqapi.metrics.HikariPoolAutoTuner;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Wraps the pooled data source so connection waits are attributed to endpoints
+    @Bean
+    public static BeanPostProcessor connectionAcquireTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionAcquireTimingDataSource)) {
+                    return new ConnectionAcquireTimingDataSource(dataSource, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "db.pool.auto-tune.enabled", havingValue = "true")
+    public HikariPoolAutoTuner hikariPoolAutoTuner(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${db.pool.auto-tune.min-size:5}") int minSize,
+            @Value("${db.pool.auto-tune.max-size:40}") int maxSize,
+            @Value("${db.pool.auto-tune.step:2}") int step,
+            @Value("${db.pool.auto-tune.target-acquire-ms:10}") double targetAcquireMillis,
+            @Value("${db.pool.auto-tune.max-usage-ms:250}") double maxUsageMillis) throws SQLException {
+        return new HikariPoolAutoTuner(dataSource, meterRegistry, minSize, maxSize, step, targetAcquireMillis, maxUsageMillis);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.metrics.LatencyBreakdownFilter;
+import com.example.springjooqapi.metrics.LatencyEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class LatencyMetricsConfig {
+
+    // Ahead of Spring Security's filter chain, so authentication falls inside the measured time
+    @Bean
+    public FilterRegistrationBean<LatencyBreakdownFilter> latencyBreakdownFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<LatencyBreakdownFilter> registration =
+                new FilterRegistrationBean<>(new LatencyBreakdownFilter(meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 12);
+        return registration;
+    }
+
+    @Bean
+    public LatencyEndpoint latencyEndpoint(MeterRegistry meterRegistry) {
+        return new LatencyEndpoint(meterRegistry);
+    }
+}
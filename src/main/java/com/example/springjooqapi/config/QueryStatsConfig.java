@@ -0,0 +1,58 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.metrics.QueryStatsFilter;
+import com.example.springjooqapi.metrics.QueryStatsListener;
+import com.example.springjooqapi.metrics.SampledSqlLogListener;
+import com.example.springjooqapi.metrics.SlowRequestLog;
+import com.example.springjooqapi.metrics.SlowRequestsEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+public class QueryStatsConfig {
+
+    @Bean
+    public ExecuteListenerProvider queryStatsListenerProvider(
+            @Value("${query-stats.repeated-statement-threshold:5}") int repeatedShapeThreshold,
+            @Value("${query-budget.enforce:false}") boolean enforceBudget) {
+        return new DefaultExecuteListenerProvider(new QueryStatsListener(repeatedShapeThreshold, enforceBudget));
+    }
+
+    @Bean
+    public ExecuteListenerProvider sampledSqlLogListenerProvider(
+            @Value("${sql-log.sample-rate:0.0}") double sampleRate,
+            @Value("${sql-log.slow-threshold-ms:200}") long slowThresholdMillis,
+            @Value("${sql-log.slow-log-interval-ms:1000}") long slowLogIntervalMillis) {
+        return new DefaultExecuteListenerProvider(
+                new SampledSqlLogListener(sampleRate, slowThresholdMillis, Duration.ofMillis(slowLogIntervalMillis)));
+    }
+
+    @Bean
+    public SlowRequestLog slowRequestLog(
+            @Value("${slow-requests.capacity:100}") int capacity,
+            @Value("${slow-requests.threshold-ms:500}") long thresholdMillis) {
+        return new SlowRequestLog(capacity, thresholdMillis);
+    }
+
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        return new SlowRequestsEndpoint(slowRequestLog);
+    }
+
+    // Ahead of Spring Security's filter chain, so statements issued while authenticating are counted
+    @Bean
+    public FilterRegistrationBean<QueryStatsFilter> queryStatsFilter(MeterRegistry meterRegistry, SlowRequestLog slowRequestLog) {
+        FilterRegistrationBean<QueryStatsFilter> registration =
+                new FilterRegistrationBean<>(new QueryStatsFilter(meterRegistry, slowRequestLog));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.metrics.ConnectionAcquireTimingDataSource;
+import com.example.springjooqapi.sharding.Shard;
+import com.example.springjooqapi.sharding.ShardRouter;
+import com.example.springjooqapi.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // Shard 0 is the application's primary DSLContext; the others get their own pool
+    @Bean(destroyMethod = "shutdown")
+    public ShardRouter shardRouter(
+            DSLContext dsl,
+            DataSourceProperties dataSourceProperties,
+            ShardingProperties shardingProperties,
+            ObjectProvider<ExecuteListenerProvider> executeListenerProviders,
+            MeterRegistry meterRegistry) {
+        List<Shard> shards = new ArrayList<>();
+        List<Runnable> closeActions = new ArrayList<>();
+        shards.add(new Shard(0, dsl,
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()));
+
+        ExecuteListenerProvider[] listeners = executeListenerProviders.orderedStream()
+                .toArray(ExecuteListenerProvider[]::new);
+        for (ShardingProperties.ShardDataSource shard : shardingProperties.getShards()) {
+            int shardId = shards.size();
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + shardId);
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername());
+            pool.setPassword(shard.getPassword());
+            pool.setMaximumPoolSize(shardingProperties.getMaximumPoolSize());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            closeActions.add(pool::close);
+
+            DSLContext shardDsl = DSL.using(new DefaultConfiguration()
+                    .set(new ConnectionAcquireTimingDataSource(pool, meterRegistry))
+                    .set(SQLDialect.POSTGRES)
+                    .set(listeners));
+            shards.add(new Shard(shardId, shardDsl, shard.getUrl(), shard.getUsername(), shard.getPassword()));
+        }
+
+        return new ShardRouter(shards, shardingProperties.getVirtualNodes(), shardingProperties.getFanOutThreads(), closeActions);
+    }
+}
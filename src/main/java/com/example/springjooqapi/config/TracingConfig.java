@@ -0,0 +1,38 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.metrics.JooqObservationListener;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Spans for controllers and services (@Observed) and for jOOQ statements. HTTP requests
+ * are observed by Spring itself; with the OpenTelemetry bridge on the classpath every
+ * observation is exported as a span (see the tracing section of the README).
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    @Bean
+    public ExecuteListenerProvider jooqObservationListenerProvider(ObservationRegistry observationRegistry) {
+        return new DefaultExecuteListenerProvider(new JooqObservationListener(observationRegistry));
+    }
+
+    // Spans as OTLP JSON lines, routed to a file by logback-spring.xml; for runs without a collector
+    @Bean
+    @Profile("trace-file")
+    public SpanExporter otlpJsonFileSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+}
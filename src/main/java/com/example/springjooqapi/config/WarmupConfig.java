@@ -0,0 +1,40 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.warmup.FirstRequestsFilter;
+import com.example.springjooqapi.warmup.WarmupEndpoint;
+import com.example.springjooqapi.warmup.WarmupReport;
+import com.example.springjooqapi.warmup.WarmupRunner;
+import io.micrometer.observation.ObservationPredicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class WarmupConfig {
+
+    @Bean
+    public WarmupReport warmupReport(@Value("${warmup.report-first-requests:50}") int firstRequestsToRecord) {
+        return new WarmupReport(firstRequestsToRecord);
+    }
+
+    @Bean
+    public WarmupEndpoint warmupEndpoint(WarmupReport warmupReport) {
+        return new WarmupEndpoint(warmupReport);
+    }
+
+    @Bean
+    public FilterRegistrationBean<FirstRequestsFilter> firstRequestsFilter(WarmupReport warmupReport) {
+        FilterRegistrationBean<FirstRequestsFilter> registration = new FilterRegistrationBean<>(new FirstRequestsFilter(warmupReport));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 11);
+        return registration;
+    }
+
+    // Thousands of warm-up calls would otherwise show up as traces and method timings
+    @Bean
+    public ObservationPredicate skipWarmupObservations() {
+        return (name, context) -> !WarmupRunner.isWarmingUp();
+    }
+}
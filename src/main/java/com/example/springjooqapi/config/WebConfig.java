@@ -0,0 +1,33 @@
+package com.example.springjooqapi.config;
+
+import com.example.springjooqapi.metrics.EndpointContextInterceptor;
+import com.example.springjooqapi.metrics.LatencyBreakdownInterceptor;
+import com.example.springjooqapi.metrics.QueryBudgetInterceptor;
+import com.example.springjooqapi.metrics.TimedJackson2HttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new EndpointContextInterceptor());
+        registry.addInterceptor(new QueryBudgetInterceptor());
+        registry.addInterceptor(new LatencyBreakdownInterceptor());
+    }
+
+    // Same ObjectMapper and media types, with the write timed as the serialization phase
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> converter instanceof MappingJackson2HttpMessageConverter jackson
+                && !(converter instanceof TimedJackson2HttpMessageConverter)
+                ? new TimedJackson2HttpMessageConverter(jackson.getObjectMapper())
+                : converter);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.springjooqapi.controller;
+
+import com.example.springjooqapi.dto.PurgeJobResponse;
+import com.example.springjooqapi.model.UserPrincipal;
+import com.example.springjooqapi.service.PurgeService;
+import com.example.springjooqapi.util.Bulkhead;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@Observed
+@RequestMapping("/api/account")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AccountController {
+    private final PurgeService purgeService;
+    private final Bulkhead bulkhead;
+
+    public AccountController(PurgeService purgeService, @Qualifier("authBulkhead") Bulkhead bulkhead) {
+        this.purgeService = purgeService;
+        this.bulkhead = bulkhead;
+    }
+
+    // Disables the account and revokes its sessions now; data is purged in the background
+    @DeleteMapping
+    public CompletableFuture<ResponseEntity<PurgeJobResponse>> deleteAccount(
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return bulkhead.submit(() -> ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(purgeService.requestAccountDeletion(userPrincipal.getId())));
+    }
+
+    @GetMapping("/purges/{id}")
+    public CompletableFuture<ResponseEntity<?>> getPurgeJob(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long id) {
+        return bulkhead.submit(() -> purgeService.getJob(id, userPrincipal.getId())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+}
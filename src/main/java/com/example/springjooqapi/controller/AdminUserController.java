@@ -0,0 +1,57 @@
+package com.example.springjooqapi.controller;
+
+import com.example.springjooqapi.dto.UserDirectoryPage;
+import com.example.springjooqapi.service.UserDirectoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@RestController
+@Observed
+@RequestMapping("/api/admin/users")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminUserController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final UserDirectoryService userDirectoryService;
+    private final ObjectMapper objectMapper;
+
+    public AdminUserController(UserDirectoryService userDirectoryService, ObjectMapper objectMapper) {
+        this.userDirectoryService = userDirectoryService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping
+    public ResponseEntity<UserDirectoryPage> listUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + UserDirectoryService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Boolean enabled) {
+        return ResponseEntity.ok(userDirectoryService.listUsers(after, limit, country, city, enabled));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Boolean enabled) {
+        // One JSON document per line, written as rows arrive from the database cursor
+        StreamingResponseBody body = out -> userDirectoryService.exportUsers(country, city, enabled, user -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(user));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
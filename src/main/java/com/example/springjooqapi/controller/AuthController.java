@@ -1,23 +1,36 @@
 package com.example.springjooqapi.controller;
 
+import com.example.springjooqapi.audit.AuditLog;
 import com.example.springjooqapi.dto.AuthResponse;
+import com.example.springjooqapi.dto.AvailabilityResponse;
 import com.example.springjooqapi.dto.LoginRequest;
 import com.example.springjooqapi.dto.MessageResponse;
 import com.example.springjooqapi.dto.RegisterRequest;
+import com.example.springjooqapi.metrics.QueryBudget;
 import com.example.springjooqapi.model.UserPrincipal;
 import com.example.springjooqapi.security.JwtTokenProvider;
+import com.example.springjooqapi.service.AvailabilityService;
+import com.example.springjooqapi.service.TokenRevocationService;
 import com.example.springjooqapi.service.UserService;
+import com.example.springjooqapi.util.Bulkhead;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
+@Observed
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class AuthController {
@@ -31,66 +44,104 @@ public class AuthController {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
-    @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
-        try {
-            if (userService.existsByUsername(registerRequest.getUsername())) {
-                return ResponseEntity
-                        .badRequest()
-                        .body(new MessageResponse("Error: Username is already taken!"));
-            }
-
-            if (userService.existsByEmail(registerRequest.getEmail())) {
-                return ResponseEntity
-                        .badRequest()
-                        .body(new MessageResponse("Error: Email is already in use!"));
-            }
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
-            UserPrincipal user = userService.createUser(
-                    registerRequest.getUsername(),
-                    registerRequest.getEmail(),
-                    registerRequest.getPassword(),
-                    registerRequest.getFirstName(),
-                    registerRequest.getLastName()
-            );
+    @Autowired
+    private AvailabilityService availabilityService;
 
-            String jwt = jwtTokenProvider.generateToken(user.getUsername());
+    @Autowired
+    private AuditLog auditLog;
 
-            return ResponseEntity.ok(new AuthResponse(jwt, user.getUsername(), user.getEmail()));
+    @Autowired
+    @Qualifier("authBulkhead")
+    private Bulkhead bulkhead;
 
-        } catch (Exception e) {
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new MessageResponse("Error: " + e.getMessage()));
-        }
+    @PostMapping("/register")
+    @QueryBudget(9)
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
+        return bulkhead.submit(() -> {
+            try {
+                if (userService.existsByUsername(registerRequest.getUsername())) {
+                    return ResponseEntity
+                            .badRequest()
+                            .body(new MessageResponse("Error: Username is already taken!"));
+                }
+
+                if (userService.existsByEmail(registerRequest.getEmail())) {
+                    return ResponseEntity
+                            .badRequest()
+                            .body(new MessageResponse("Error: Email is already in use!"));
+                }
+
+                UserPrincipal user = userService.createUser(
+                        registerRequest.getUsername(),
+                        registerRequest.getEmail(),
+                        registerRequest.getPassword(),
+                        registerRequest.getFirstName(),
+                        registerRequest.getLastName()
+                );
+
+                String jwt = jwtTokenProvider.generateToken(user.getUsername());
+                auditLog.record(user.getId(), "user.register", "user", user.getId(), null);
+
+                return ResponseEntity.ok(new AuthResponse(jwt, user.getUsername(), user.getEmail()));
+
+            } catch (Exception e) {
+                return ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new MessageResponse("Error: " + e.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword()
-                    )
-            );
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtTokenProvider.generateToken(loginRequest.getUsername());
-
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-
-            return ResponseEntity.ok(new AuthResponse(
-                    jwt,
-                    userPrincipal.getUsername(),
-                    userPrincipal.getEmail()
-            ));
+    @QueryBudget(3)
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        return bulkhead.submit(() -> {
+            try {
+                Authentication authentication = authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                loginRequest.getUsername(),
+                                loginRequest.getPassword()
+                        )
+                );
+
+                // No SecurityContextHolder here: sessions are stateless and this runs on a
+                // pooled bulkhead thread, where a thread-local context would leak
+                String jwt = jwtTokenProvider.generateToken(loginRequest.getUsername());
+
+                UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+                auditLog.record(userPrincipal.getId(), "auth.login", "user", userPrincipal.getId(), null);
+
+                return ResponseEntity.ok(new AuthResponse(
+                        jwt,
+                        userPrincipal.getUsername(),
+                        userPrincipal.getEmail()
+                ));
+
+            } catch (Exception e) {
+                auditLog.record(null, "auth.login-failed", "user", null, "username=" + loginRequest.getUsername());
+                return ResponseEntity
+                        .status(HttpStatus.UNAUTHORIZED)
+                        .body(new MessageResponse("Error: Invalid username or password"));
+            }
+        });
+    }
 
-        } catch (Exception e) {
-            return ResponseEntity
-                    .status(HttpStatus.UNAUTHORIZED)
-                    .body(new MessageResponse("Error: Invalid username or password"));
+    // For sign-up forms: usually answered from memory; registration still checks the database
+    @GetMapping("/availability")
+    @QueryBudget(2)
+    public ResponseEntity<?> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: username or email is required"));
         }
+        return ResponseEntity.ok(new AvailabilityResponse(
+                username == null || username.isBlank() ? null : availabilityService.isUsernameAvailable(username),
+                email == null || email.isBlank() ? null : availabilityService.isEmailAvailable(email)
+        ));
     }
 
     @GetMapping("/validate")
@@ -102,4 +153,40 @@ public class AuthController {
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Invalid token"));
     }
+
+    @PostMapping("/logout")
+    public CompletableFuture<ResponseEntity<?>> logout(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (userPrincipal == null || authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Invalid token")));
+        }
+
+        Claims claims = jwtTokenProvider.extractAllClaims(authHeader.substring(7));
+        return bulkhead.submit(() -> {
+            if (claims.getId() == null) {
+                // Tokens issued before token ids were introduced can only be revoked all at once
+                tokenRevocationService.revokeAllSessions(userPrincipal.getId());
+            } else {
+                tokenRevocationService.revokeToken(claims.getId(), userPrincipal.getId(), claims.getExpiration());
+            }
+            auditLog.record(userPrincipal.getId(), "auth.logout", "user", userPrincipal.getId(), null);
+            return ResponseEntity.ok(new MessageResponse("Logged out successfully"));
+        });
+    }
+
+    @PostMapping("/logout-all")
+    public CompletableFuture<ResponseEntity<?>> logoutAllSessions(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        if (userPrincipal == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Invalid token")));
+        }
+
+        return bulkhead.submit(() -> {
+            tokenRevocationService.revokeAllSessions(userPrincipal.getId());
+            auditLog.record(userPrincipal.getId(), "auth.logout-all", "user", userPrincipal.getId(), null);
+            return ResponseEntity.ok(new MessageResponse("All sessions revoked"));
+        });
+    }
 }
@@ -1,20 +1,34 @@
 package com.example.springjooqapi.controller;
 
+import com.example.springjooqapi.dto.ItemBatchUpdateRequest;
 import com.example.springjooqapi.dto.ItemRequest;
 import com.example.springjooqapi.dto.ItemResponse;
+import com.example.springjooqapi.dto.ItemStatsResponse;
 import com.example.springjooqapi.dto.MessageResponse;
+import com.example.springjooqapi.dto.PurgeJobResponse;
+import com.example.springjooqapi.metrics.QueryBudget;
 import com.example.springjooqapi.model.UserPrincipal;
+import com.example.springjooqapi.service.ItemChangeStreamService;
+import com.example.springjooqapi.service.ItemField;
 import com.example.springjooqapi.service.ItemService;
+import com.example.springjooqapi.service.PurgeService;
+import com.example.springjooqapi.util.Bulkhead;
+import com.example.springjooqapi.util.EntityTags;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
+@Observed
 @RequestMapping("/api/items")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class ItemController {
@@ -22,54 +36,130 @@ public class ItemController {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private PurgeService purgeService;
+
+    @Autowired
+    private ItemChangeStreamService itemChangeStreamService;
+
+    @Autowired
+    @Qualifier("itemsBulkhead")
+    private Bulkhead bulkhead;
+
     @PostMapping
-    public ResponseEntity<?> createItem(
+    @QueryBudget(1)
+    public CompletableFuture<ResponseEntity<?>> createItem(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
             @Valid @RequestBody ItemRequest request) {
-        try {
-            ItemResponse item = itemService.createItem(userPrincipal.getId(), request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(item);
-        } catch (Exception e) {
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new MessageResponse("Error creating item: " + e.getMessage()));
-        }
+        return bulkhead.submit(() -> {
+            try {
+                ItemResponse item = itemService.createItem(userPrincipal.getId(), request);
+                return ResponseEntity.status(HttpStatus.CREATED).eTag(EntityTags.of(item.getVersion())).body(item);
+            } catch (Exception e) {
+                return ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new MessageResponse("Error creating item: " + e.getMessage()));
+            }
+        });
     }
 
+    // ?ids=1,2,3 fetches specific items in one query; ?fields=id,name narrows the columns read and returned
     @GetMapping
-    public ResponseEntity<List<ItemResponse>> getAllItems(
+    @QueryBudget(1)
+    public CompletableFuture<ResponseEntity<?>> getAllItems(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) String fields) {
+        List<ItemField> itemFields = ItemField.parse(fields);
+        return bulkhead.submit(() -> {
+            if (itemFields != null) {
+                return ResponseEntity.ok(itemService.getItemFields(userPrincipal.getId(), ids, itemFields));
+            }
+            if (ids != null) {
+                return ResponseEntity.ok(itemService.getItemsByIds(userPrincipal.getId(), ids));
+            }
+            List<ItemResponse> items = itemService.getAllItemsForUser(userPrincipal.getId());
+            return ResponseEntity.ok(items);
+        });
+    }
+
+    @GetMapping("/stats")
+    @QueryBudget(1)
+    public CompletableFuture<ResponseEntity<ItemStatsResponse>> getItemStats(
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
-        List<ItemResponse> items = itemService.getAllItemsForUser(userPrincipal.getId());
-        return ResponseEntity.ok(items);
+        return bulkhead.submit(() -> ResponseEntity.ok(itemService.getItemStats(userPrincipal.getId())));
+    }
+
+    // Server-sent events for the user's item changes; reconnecting with Last-Event-ID resumes the stream
+    @GetMapping("/changes")
+    public SseEmitter streamItemChanges(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return itemChangeStreamService.subscribe(userPrincipal.getId(), lastEventId);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getItemById(
+    @QueryBudget(1)
+    public CompletableFuture<ResponseEntity<?>> getItemById(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
-            @PathVariable Long id) {
-        return itemService.getItemById(id, userPrincipal.getId())
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        List<ItemField> itemFields = ItemField.parse(fields);
+        return bulkhead.submit(() -> {
+            if (itemFields != null) {
+                return itemService.getItemFieldsById(id, userPrincipal.getId(), itemFields)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build());
+            }
+            return itemService.getItemById(id, userPrincipal.getId())
+                    .<ResponseEntity<?>>map(item -> ResponseEntity.ok().eTag(EntityTags.of(item.getVersion())).body(item))
+                    .orElse(ResponseEntity.notFound().build());
+        });
     }
 
+    // If-Match: "<version>" makes the update conditional; 412 with the current ETag if the item changed
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateItem(
+    @QueryBudget(2)
+    public CompletableFuture<ResponseEntity<?>> updateItem(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
             @PathVariable Long id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody ItemRequest request) {
-        return itemService.updateItem(id, userPrincipal.getId(), request)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        List<Long> expectedVersions = EntityTags.parseVersions(ifMatch);
+        return bulkhead.submit(() -> itemService.updateItem(id, userPrincipal.getId(), request, expectedVersions)
+                .<ResponseEntity<?>>map(item -> ResponseEntity.ok().eTag(EntityTags.of(item.getVersion())).body(item))
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    // Conditional update of many items in one statement; stale and missing items are listed, not failed
+    @PutMapping("/batch")
+    @QueryBudget(2)
+    public CompletableFuture<ResponseEntity<?>> updateItems(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @Valid @RequestBody ItemBatchUpdateRequest request) {
+        return bulkhead.submit(() -> ResponseEntity.ok(itemService.updateItems(userPrincipal.getId(), request.getItems())));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteItem(
+    @QueryBudget(1)
+    public CompletableFuture<ResponseEntity<?>> deleteItem(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
             @PathVariable Long id) {
-        boolean deleted = itemService.deleteItem(id, userPrincipal.getId());
-        if (deleted) {
-            return ResponseEntity.ok(new MessageResponse("Item deleted successfully"));
-        }
-        return ResponseEntity.notFound().build();
+        return bulkhead.submit(() -> {
+            boolean deleted = itemService.deleteItem(id, userPrincipal.getId());
+            if (deleted) {
+                return ResponseEntity.ok(new MessageResponse("Item deleted successfully"));
+            }
+            return ResponseEntity.notFound().build();
+        });
+    }
+
+    // Deletes all current items in the background; progress via GET /api/account/purges/{jobId}
+    @DeleteMapping
+    public CompletableFuture<ResponseEntity<PurgeJobResponse>> deleteAllItems(
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return bulkhead.submit(() -> ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(purgeService.requestItemPurge(userPrincipal.getId())));
     }
 }
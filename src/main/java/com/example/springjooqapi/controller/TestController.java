@@ -1,6 +1,7 @@
 package com.example.springjooqapi.controller;
 
 import com.example.springjooqapi.model.UserPrincipal;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -9,6 +10,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestController
+@Observed
 @RequestMapping("/api/test")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class TestController {
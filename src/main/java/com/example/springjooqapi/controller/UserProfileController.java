@@ -3,43 +3,77 @@ package com.example.springjooqapi.controller;
 import com.example.springjooqapi.dto.MessageResponse;
 import com.example.springjooqapi.dto.UserProfileRequest;
 import com.example.springjooqapi.dto.UserProfileResponse;
+import com.example.springjooqapi.metrics.QueryBudget;
 import com.example.springjooqapi.model.UserPrincipal;
+import com.example.springjooqapi.service.ProfileQuery;
 import com.example.springjooqapi.service.UserProfileService;
+import com.example.springjooqapi.util.Bulkhead;
+import com.example.springjooqapi.util.EntityTags;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
+@Observed
 @RequestMapping("/api/profile")
 public class UserProfileController {
     private final UserProfileService userProfileService;
+    private final Bulkhead bulkhead;
 
-    public UserProfileController(UserProfileService userProfileService) {
+    public UserProfileController(
+            UserProfileService userProfileService,
+            @Qualifier("profileBulkhead") Bulkhead bulkhead) {
         this.userProfileService = userProfileService;
+        this.bulkhead = bulkhead;
     }
 
+    // include=user,items selects the parts to load (default: all, include= for the profile alone);
+    // items.limit and items.sort (e.g. createdAt,desc) shape the items collection
     @GetMapping
-    public ResponseEntity<?> getProfile(@AuthenticationPrincipal UserPrincipal userPrincipal) {
-        return userProfileService.getProfileByUserId(userPrincipal.getId())
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    @QueryBudget(1)
+    public CompletableFuture<ResponseEntity<?>> getProfile(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @RequestParam(required = false) String include,
+            @RequestParam(name = "items.limit", required = false) Integer itemsLimit,
+            @RequestParam(name = "items.sort", required = false) String itemsSort) {
+        ProfileQuery query = ProfileQuery.of(include, itemsLimit, itemsSort);
+        return bulkhead.submit(() -> userProfileService.getProfileByUserId(userPrincipal.getId(), query)
+            .<ResponseEntity<?>>map(profile -> ResponseEntity.ok().eTag(EntityTags.of(profile.getVersion())).body(profile))
+            .orElse(ResponseEntity.notFound().build()));
     }
 
+    // Upsert. If-Match: "<version>" (or *) only updates, If-None-Match: * only creates; 412 otherwise
     @PostMapping
-    public ResponseEntity<UserProfileResponse> createOrUpdateProfile(
+    @QueryBudget(2)
+    public CompletableFuture<ResponseEntity<UserProfileResponse>> createOrUpdateProfile(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
             @Valid @RequestBody UserProfileRequest request) {
-        UserProfileResponse profile = userProfileService.createOrUpdateProfile(
-            userPrincipal.getId(), 
-            request
-        );
-        return ResponseEntity.ok(profile);
+        return bulkhead.submit(() -> {
+            Long userId = userPrincipal.getId();
+            UserProfileResponse profile;
+            if (ifMatch != null) {
+                profile = userProfileService.updateProfile(userId, request, EntityTags.parseVersions(ifMatch));
+            } else if (EntityTags.isWildcard(ifNoneMatch)) {
+                profile = userProfileService.createProfile(userId, request);
+            } else {
+                profile = userProfileService.createOrUpdateProfile(userId, request);
+            }
+            return ResponseEntity.ok().eTag(EntityTags.of(profile.getVersion())).body(profile);
+        });
     }
 
     @DeleteMapping
-    public ResponseEntity<?> deleteProfile(@AuthenticationPrincipal UserPrincipal userPrincipal) {
-        userProfileService.deleteProfile(userPrincipal.getId());
-        return ResponseEntity.ok(new MessageResponse("Profile deleted successfully"));
+    public CompletableFuture<ResponseEntity<?>> deleteProfile(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return bulkhead.submit(() -> {
+            userProfileService.deleteProfile(userPrincipal.getId());
+            return ResponseEntity.ok(new MessageResponse("Profile deleted successfully"));
+        });
     }
 }
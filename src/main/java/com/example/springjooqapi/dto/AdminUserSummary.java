@@ -0,0 +1,26 @@
+package com.example.springjooqapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminUserSummary {
+    private Long id;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Boolean enabled;
+    private LocalDateTime createdAt;
+
+    // Profile summary (null when the user has no profile)
+    private String country;
+    private String city;
+
+    private Integer itemCount;
+}
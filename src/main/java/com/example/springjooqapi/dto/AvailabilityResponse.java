@@ -0,0 +1,15 @@
+package com.example.springjooqapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityResponse {
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+}
@@ -0,0 +1,40 @@
+package com.example.springjooqapi.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemBatchUpdateRequest {
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 100, message = "At most 100 items per request")
+    @Valid
+    private List<ItemUpdate> items;
+
+    // Applied only if the item is still at the given version
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemUpdate {
+        @NotNull(message = "Id is required")
+        private Long id;
+
+        @NotNull(message = "Version is required")
+        private Long version;
+
+        @NotBlank(message = "Name is required")
+        private String name;
+
+        private String description;
+    }
+}
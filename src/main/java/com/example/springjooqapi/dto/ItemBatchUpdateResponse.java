@@ -0,0 +1,25 @@
+package com.example.springjooqapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemBatchUpdateResponse {
+    private List<ItemResponse> updated;
+    // Items changed by someone else since the version the client sent
+    private List<Conflict> conflicts;
+    private List<Long> notFound;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Conflict {
+        private Long id;
+        private Long currentVersion;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.springjooqapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemChangeEvent {
+    private Long changeId;
+    private Long userId;
+    private Long itemId;
+    private String operation;
+    private LocalDateTime changedAt;
+}
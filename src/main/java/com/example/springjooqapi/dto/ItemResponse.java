@@ -16,4 +16,5 @@ public class ItemResponse {
     private Long userId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
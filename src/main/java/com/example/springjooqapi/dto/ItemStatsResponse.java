@@ -0,0 +1,16 @@
+package com.example.springjooqapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemStatsResponse {
+    private Long userId;
+    private Long itemCount;
+    private LocalDateTime lastModifiedAt;
+}
@@ -0,0 +1,21 @@
+package com.example.springjooqapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurgeJobResponse {
+    private Long id;
+    private Long userId;
+    private String scope;
+    private String status;
+    private Long itemsDeleted;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,17 @@
+package com.example.springjooqapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryPage {
+    private List<AdminUserSummary> users;
+
+    // Pass as ?after= to fetch the next page; null on the last page
+    private Long nextCursor;
+}
@@ -21,12 +21,17 @@ public class UserProfileResponse {
     private String city;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
     
     // Nested user information
     private UserInfo user;
     
     // User's items (one-to-many)
     private List<ItemResponse> items;
+
+    // Item summary from user_item_stats
+    private Long itemCount;
+    private LocalDateTime itemsLastModifiedAt;
     
     @Data
     @NoArgsConstructor
@@ -0,0 +1,8 @@
+package com.example.springjooqapi.exception;
+
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String bulkhead) {
+        super("Too many concurrent requests for " + bulkhead + ", try again later");
+    }
+}
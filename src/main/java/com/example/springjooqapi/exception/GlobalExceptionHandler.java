@@ -1,6 +1,9 @@
 package com.example.springjooqapi.exception;
 
 import com.example.springjooqapi.dto.MessageResponse;
+import com.example.springjooqapi.util.EntityTags;
+import com.example.springjooqapi.util.RateLimitedLog;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -10,11 +13,15 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private static final RateLimitedLog failedLoginLog =
+            new RateLimitedLog(LoggerFactory.getLogger(GlobalExceptionHandler.class), Duration.ofSeconds(1));
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(
@@ -39,11 +46,50 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<MessageResponse> handleBadCredentialsException(
             BadCredentialsException ex) {
+        failedLoginLog.warn("Rejected login: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.UNAUTHORIZED)
                 .body(new MessageResponse("Invalid username or password"));
     }
 
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<MessageResponse> handleBulkheadFullException(BulkheadFullException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new MessageResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(StreamLimitExceededException.class)
+    public ResponseEntity<MessageResponse> handleStreamLimitExceededException(StreamLimitExceededException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new MessageResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<MessageResponse> handleTimeoutException(TimeoutException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new MessageResponse("Request timed out, try again later"));
+    }
+
+    @ExceptionHandler(QueryBudgetExceededException.class)
+    public ResponseEntity<MessageResponse> handleQueryBudgetExceededException(QueryBudgetExceededException ex) {
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new MessageResponse(ex.getMessage()));
+    }
+
+    // Carries the current ETag so the client can re-read or retry with it
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<MessageResponse> handlePreconditionFailedException(PreconditionFailedException ex) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        if (ex.getCurrentVersion() != null) {
+            response.eTag(EntityTags.of(ex.getCurrentVersion()));
+        }
+        return response.body(new MessageResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<MessageResponse> handleRuntimeException(RuntimeException ex) {
         return ResponseEntity
@@ -0,0 +1,16 @@
+package com.example.springjooqapi.exception;
+
+// A conditional update whose If-Match/If-None-Match did not hold; answered with 412
+public class PreconditionFailedException extends RuntimeException {
+    private final Long currentVersion;
+
+    public PreconditionFailedException(String message, Long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    // Null when there is no current representation
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
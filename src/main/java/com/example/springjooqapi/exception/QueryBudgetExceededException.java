@@ -0,0 +1,8 @@
+package com.example.springjooqapi.exception;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String endpoint, int budget, String sql) {
+        super("Query budget of " + budget + " statements exceeded by " + endpoint + " at: " + sql);
+    }
+}
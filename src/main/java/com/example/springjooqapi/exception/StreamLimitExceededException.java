@@ -0,0 +1,8 @@
+package com.example.springjooqapi.exception;
+
+public class StreamLimitExceededException extends RuntimeException {
+
+    public StreamLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.springjooqapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Records how long each endpoint waits for a pooled connection (db.connection.acquire{endpoint}).
+// Hikari's own hikaricp.* metrics keep working: they unwrap the target data source.
+public class ConnectionAcquireTimingDataSource extends DelegatingDataSource {
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ConnectionAcquireTimingDataSource(DataSource targetDataSource, MeterRegistry registry) {
+        super(targetDataSource);
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    private void record(long nanos) {
+        timers.computeIfAbsent(EndpointContext.current(), endpoint -> Timer.builder("db.connection.acquire")
+                        .tag("endpoint", endpoint)
+                        .description("Time waiting for a pooled connection, by endpoint")
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.springjooqapi.metrics;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts the body bytes written, without buffering them (unlike ContentCachingResponseWrapper)
+public class CountingResponseWrapper extends HttpServletResponseWrapper {
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public CountingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CountingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    // Counts characters, which equal bytes for JSON in practice; PrintWriter over a Writer adds no buffer to flush
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(super.getWriter()) {
+                @Override
+                public void write(int c) {
+                    super.write(c);
+                    bytesWritten.incrementAndGet();
+                }
+
+                @Override
+                public void write(char[] buf, int off, int len) {
+                    super.write(buf, off, len);
+                    bytesWritten.addAndGet(len);
+                }
+
+                @Override
+                public void write(String s, int off, int len) {
+                    super.write(s, off, len);
+                    bytesWritten.addAndGet(len);
+                }
+            };
+        }
+        return writer;
+    }
+
+    private class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            bytesWritten.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            bytesWritten.addAndGet(len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
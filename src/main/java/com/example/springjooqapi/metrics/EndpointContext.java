@@ -0,0 +1,42 @@
+package com.example.springjooqapi.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+
+// Name of the endpoint (e.g. "GET /api/items/{id}") the current thread is working for, used to
+// attribute database work. Copied onto bulkhead threads by the TaskDecorator below.
+public final class EndpointContext {
+    public static final String UNKNOWN = "unknown";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private EndpointContext() {
+    }
+
+    public static String current() {
+        String endpoint = CURRENT.get();
+        return endpoint != null ? endpoint : UNKNOWN;
+    }
+
+    public static void set(String endpoint) {
+        CURRENT.set(endpoint);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static TaskDecorator taskDecorator() {
+        return runnable -> {
+            String endpoint = CURRENT.get();
+            return () -> {
+                String previous = CURRENT.get();
+                CURRENT.set(endpoint);
+                try {
+                    runnable.run();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.springjooqapi.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjusts Hikari's maximum pool size within configured bounds. The pool grows while
+ * requests queue for connections and connections are returned quickly (the database has
+ * headroom); it stops growing when connection usage time rises, since more connections
+ * would only add load to a saturated database. It shrinks after sustained idle capacity.
+ */
+public class HikariPoolAutoTuner {
+    private static final Logger log = LoggerFactory.getLogger(HikariPoolAutoTuner.class);
+
+    // Consecutive calm intervals required before shrinking, to avoid flapping
+    private static final int CALM_INTERVALS_BEFORE_SHRINK = 5;
+
+    private final HikariDataSource hikari;
+    private final MeterRegistry registry;
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final double targetAcquireMillis;
+    private final double maxUsageMillis;
+
+    private TimerWindow acquireWindow = TimerWindow.EMPTY;
+    private TimerWindow usageWindow = TimerWindow.EMPTY;
+    private int calmIntervals;
+
+    public HikariPoolAutoTuner(
+            DataSource dataSource,
+            MeterRegistry registry,
+            int minSize,
+            int maxSize,
+            int step,
+            double targetAcquireMillis,
+            double maxUsageMillis) throws SQLException {
+        this.hikari = dataSource.unwrap(HikariDataSource.class);
+        this.registry = registry;
+        this.minSize = Math.max(minSize, hikari.getMinimumIdle());
+        this.maxSize = maxSize;
+        this.step = step;
+        this.targetAcquireMillis = targetAcquireMillis;
+        this.maxUsageMillis = maxUsageMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${db.pool.auto-tune.interval:30000}")
+    public void tune() {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            // Pool is created lazily on first connection
+            return;
+        }
+
+        TimerWindow acquire = TimerWindow.of(poolTimer("hikaricp.connections.acquire"));
+        TimerWindow usage = TimerWindow.of(poolTimer("hikaricp.connections.usage"));
+        double meanAcquireMillis = acquire.meanMillisSince(acquireWindow);
+        double meanUsageMillis = usage.meanMillisSince(usageWindow);
+        acquireWindow = acquire;
+        usageWindow = usage;
+
+        int current = hikari.getHikariConfigMXBean().getMaximumPoolSize();
+        int target = current;
+
+        if (meanAcquireMillis > targetAcquireMillis && pool.getThreadsAwaitingConnection() > 0) {
+            calmIntervals = 0;
+            if (meanUsageMillis > maxUsageMillis) {
+                log.info("Pool waits {} ms but connections are held {} ms on average; database looks saturated, not growing",
+                        Math.round(meanAcquireMillis), Math.round(meanUsageMillis));
+            } else {
+                target = Math.min(maxSize, current + step);
+            }
+        } else if (meanAcquireMillis < targetAcquireMillis / 4 && pool.getIdleConnections() > step) {
+            if (++calmIntervals >= CALM_INTERVALS_BEFORE_SHRINK) {
+                target = Math.max(minSize, current - step);
+                calmIntervals = 0;
+            }
+        } else {
+            calmIntervals = 0;
+        }
+
+        if (target != current) {
+            hikari.getHikariConfigMXBean().setMaximumPoolSize(target);
+            log.info("Connection pool resized {} -> {} (mean acquire {} ms, mean usage {} ms, waiting threads {})",
+                    current, target, Math.round(meanAcquireMillis), Math.round(meanUsageMillis),
+                    pool.getThreadsAwaitingConnection());
+        }
+    }
+
+    private Timer poolTimer(String name) {
+        return registry.find(name).tag("pool", hikari.getPoolName()).timer();
+    }
+
+    // Cumulative timer totals; the difference between two readings gives the interval mean
+    private record TimerWindow(long count, double totalMillis) {
+        static final TimerWindow EMPTY = new TimerWindow(0, 0);
+
+        static TimerWindow of(Timer timer) {
+            return timer == null ? EMPTY : new TimerWindow(timer.count(), timer.totalTime(TimeUnit.MILLISECONDS));
+        }
+
+        double meanMillisSince(TimerWindow previous) {
+            long samples = count - previous.count;
+            return samples > 0 ? (totalMillis - previous.totalMillis) / samples : 0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.springjooqapi.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+
+import java.util.Locale;
+
+/**
+ * Opens an observation (a span, with tracing) for every jOOQ execution, from the start of
+ * execution until the result has been fetched, tagged with the SQL shape and row count.
+ * Bind values are rendered as ?, so statements carry no user data.
+ */
+public class JooqObservationListener implements ExecuteListener {
+    private static final String OBSERVATION = JooqObservationListener.class.getName() + ".observation";
+
+    private final ObservationRegistry registry;
+
+    public JooqObservationListener(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        if (registry.isNoop()) {
+            return;
+        }
+        String sql = sql(ctx);
+        Observation observation = Observation.createNotStarted("jooq.query", registry)
+                .contextualName(operation(sql))
+                .lowCardinalityKeyValue("db.system", "postgresql")
+                .lowCardinalityKeyValue("db.operation", operation(sql))
+                .highCardinalityKeyValue("db.statement", sql)
+                .start();
+        ctx.data(OBSERVATION, observation);
+    }
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        if (ctx.data(OBSERVATION) instanceof Observation observation && ctx.exception() != null) {
+            observation.error(ctx.exception());
+        }
+    }
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        if (ctx.data(OBSERVATION) instanceof Observation observation) {
+            int rows = ctx.result() != null ? ctx.result().size() : ctx.rows();
+            if (rows >= 0) {
+                observation.highCardinalityKeyValue("db.rows", String.valueOf(rows));
+            }
+            observation.stop();
+        }
+    }
+
+    private static String operation(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "other" : trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static String sql(ExecuteContext ctx) {
+        if (ctx.sql() != null) {
+            return ctx.sql();
+        }
+        String[] batch = ctx.batchSQL();
+        return batch.length > 0 ? batch[0] : "";
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.springjooqapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per-endpoint latency split into phases (http.server.latency{endpoint,phase} with
+ * phase auth, handler, serialization and total) and the response body size
+ * (http.server.response.size{endpoint}), once the request including its async part completes.
+ * Percentiles are computed in-process from HdrHistogram-based time-window histograms, and
+ * histogram buckets are published for Prometheus.
+ */
+public class LatencyBreakdownFilter extends OncePerRequestFilter {
+    public static final String LATENCY_TIMER = "http.server.latency";
+    public static final String RESPONSE_SIZE = "http.server.response.size";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+
+    public LatencyBreakdownFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        RequestTimings timings = new RequestTimings();
+        request.setAttribute(RequestTimings.ATTRIBUTE, timings);
+        CountingResponseWrapper countingResponse = new CountingResponseWrapper(response);
+
+        filterChain.doFilter(request, countingResponse);
+
+        RequestCompletion.onComplete(request, () -> record(request, timings, countingResponse, startNanos));
+    }
+
+    private void record(HttpServletRequest request, RequestTimings timings, CountingResponseWrapper response,
+                        long startNanos) {
+        String endpoint = EndpointContextInterceptor.endpointName(request);
+        timer(endpoint, "total").record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        // Phases a request skipped are not recorded, so they don't pull the percentiles to zero
+        if (timings.isAuthChecked()) {
+            timer(endpoint, "auth").record(timings.getAuthNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (timings.isHandled()) {
+            timer(endpoint, "handler").record(timings.getHandlerNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (timings.isSerialized()) {
+            timer(endpoint, "serialization").record(timings.getSerializationNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        DistributionSummary.builder(RESPONSE_SIZE)
+                .tag("endpoint", endpoint)
+                .baseUnit("bytes")
+                .description("Response body size")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(response.getBytesWritten());
+    }
+
+    private Timer timer(String endpoint, String phase) {
+        return Timer.builder(LATENCY_TIMER)
+                .tag("endpoint", endpoint)
+                .tag("phase", phase)
+                .description("Request latency by phase")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.springjooqapi.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Marks the start and end of handler execution in the request's RequestTimings
+public class LatencyBreakdownInterceptor implements AsyncHandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTimings timings = RequestTimings.of(request);
+        if (timings != null) {
+            timings.handlerStarted(System.nanoTime());
+        }
+        return true;
+    }
+
+    // Not called for the dispatch that started async processing, only for the one that finished it
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTimings timings = RequestTimings.of(request);
+        if (timings != null) {
+            timings.handlerCompleted(System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.springjooqapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /actuator/latency: per-endpoint latency phases and response sizes, slowest p99
+ * first, for triage without a Prometheus server. Percentiles and max cover the recent
+ * time window of the histograms (a few minutes); counts and means are since startup.
+ */
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+    private final MeterRegistry registry;
+
+    public LatencyEndpoint(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public List<EndpointLatency> latency() {
+        Map<String, Map<String, Stats>> phases = new TreeMap<>();
+        for (Timer timer : registry.find(LatencyBreakdownFilter.LATENCY_TIMER).timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Stats stats = new Stats(
+                    timer.count(),
+                    timer.mean(TimeUnit.MILLISECONDS),
+                    percentile(snapshot, 0.5, true),
+                    percentile(snapshot, 0.95, true),
+                    percentile(snapshot, 0.99, true),
+                    snapshot.max(TimeUnit.MILLISECONDS));
+            phases.computeIfAbsent(timer.getId().getTag("endpoint"), endpoint -> new LinkedHashMap<>())
+                    .put(timer.getId().getTag("phase"), stats);
+        }
+
+        Map<String, Stats> sizes = new TreeMap<>();
+        for (DistributionSummary summary : registry.find(LatencyBreakdownFilter.RESPONSE_SIZE).summaries()) {
+            HistogramSnapshot snapshot = summary.takeSnapshot();
+            sizes.put(summary.getId().getTag("endpoint"), new Stats(
+                    summary.count(),
+                    summary.mean(),
+                    percentile(snapshot, 0.5, false),
+                    percentile(snapshot, 0.95, false),
+                    percentile(snapshot, 0.99, false),
+                    snapshot.max()));
+        }
+
+        List<EndpointLatency> endpoints = new ArrayList<>();
+        phases.forEach((endpoint, byPhase) -> endpoints.add(new EndpointLatency(endpoint, byPhase, sizes.get(endpoint))));
+        endpoints.sort(Comparator.comparingDouble(EndpointLatency::totalP99).reversed());
+        return endpoints;
+    }
+
+    private static double percentile(HistogramSnapshot snapshot, double percentile, boolean time) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return time ? value.value(TimeUnit.MILLISECONDS) : value.value();
+            }
+        }
+        return Double.NaN;
+    }
+
+    // Times in milliseconds, sizes in bytes
+    public record Stats(long count, double mean, double p50, double p95, double p99, double max) {
+    }
+
+    public record EndpointLatency(String endpoint, Map<String, Stats> phases, Stats responseBytes) {
+        double totalP99() {
+            Stats total = phases.get("total");
+            return total != null && !Double.isNaN(total.p99()) ? total.p99() : 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springjooqapi.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a handler may issue per request. Exceeding it logs a
+ * warning, or fails the offending statement when {@code query-budget.enforce=true}
+ * (intended for integration tests).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
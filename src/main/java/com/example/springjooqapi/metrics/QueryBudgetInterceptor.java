@@ -0,0 +1,22 @@
+package com.example.springjooqapi.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Declares the handler's @QueryBudget on the request's QueryStats before the handler runs
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod
+                && request.getAttribute(QueryStats.ATTRIBUTE) instanceof QueryStats stats) {
+            QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+            if (budget != null) {
+                stats.declareBudget(budget.value());
+            }
+        }
+        return true;
+    }
+}
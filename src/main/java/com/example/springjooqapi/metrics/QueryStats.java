@@ -0,0 +1,116 @@
+package com.example.springjooqapi.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statements and database time of one HTTP request. Bound to the request thread by
+ * {@link QueryStatsFilter} and copied onto bulkhead threads by {@link #taskDecorator()};
+ * updated by {@link QueryStatsListener} for every jOOQ statement.
+ */
+public class QueryStats {
+    public static final String ATTRIBUTE = QueryStats.class.getName();
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    private static final int MAX_KEPT_STATEMENTS = 20;
+
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final AtomicLong dbNanos = new AtomicLong();
+    // Statement count per SQL string; jOOQ renders bind values as ?, so a loop repeats one shape
+    private final Map<String, AtomicInteger> shapes = new ConcurrentHashMap<>();
+    // First statements of the request with their durations, kept for the slow request log
+    private final List<StatementTiming> statements = new ArrayList<>();
+
+    private volatile int budget = -1;
+    private volatile int budgetBaseline;
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    static void bind(QueryStats stats) {
+        CURRENT.set(stats);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    public static TaskDecorator taskDecorator() {
+        return runnable -> {
+            QueryStats stats = CURRENT.get();
+            return () -> {
+                QueryStats previous = CURRENT.get();
+                CURRENT.set(stats);
+                try {
+                    runnable.run();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            };
+        };
+    }
+
+    // Returns how many times this statement shape has now run in the request
+    int recordStatement(String sql) {
+        statementCount.incrementAndGet();
+        return shapes.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    void recordTime(String sql, long nanos) {
+        dbNanos.addAndGet(nanos);
+        synchronized (statements) {
+            if (statements.size() < MAX_KEPT_STATEMENTS) {
+                statements.add(new StatementTiming(sql, TimeUnit.NANOSECONDS.toMicros(nanos)));
+            }
+        }
+    }
+
+    // Statements issued before the handler (e.g. the JWT filter's user lookup) do not count
+    void declareBudget(int limit) {
+        if (budget < 0) {
+            budgetBaseline = statementCount.get();
+            budget = limit;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount.get();
+    }
+
+    public long getDbTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(dbNanos.get());
+    }
+
+    public long getDbTimeNanos() {
+        return dbNanos.get();
+    }
+
+    public List<StatementTiming> getStatements() {
+        synchronized (statements) {
+            return List.copyOf(statements);
+        }
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getBudgetedStatements() {
+        return budget < 0 ? 0 : statementCount.get() - budgetBaseline;
+    }
+
+    public boolean isOverBudget() {
+        return budget >= 0 && getBudgetedStatements() > budget;
+    }
+
+    public record StatementTiming(String sql, long durationMicros) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.springjooqapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a {@link QueryStats} for each request, ahead of the security filters so the JWT
+ * user lookup is included, and records per-endpoint statement counts and database time
+ * once the request (including any async part) completes. Requests slower than the
+ * {@link SlowRequestLog} threshold are kept there with their statements.
+ */
+public class QueryStatsFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsFilter.class);
+
+    private final MeterRegistry registry;
+    private final SlowRequestLog slowRequestLog;
+
+    public QueryStatsFilter(MeterRegistry registry, SlowRequestLog slowRequestLog) {
+        this.registry = registry;
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        // Set by the tracing bridge for the server request span, which starts before this filter
+        String traceId = MDC.get("traceId");
+        QueryStats stats = new QueryStats();
+        request.setAttribute(QueryStats.ATTRIBUTE, stats);
+        QueryStats.bind(stats);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStats.unbind();
+        }
+
+        RequestCompletion.onComplete(request, () -> record(request, response, stats, startNanos, traceId));
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, QueryStats stats,
+                        long startNanos, String traceId) {
+        String endpoint = EndpointContextInterceptor.endpointName(request);
+        DistributionSummary.builder("http.server.requests.queries")
+                .tag("endpoint", endpoint)
+                .description("SQL statements per request")
+                .register(registry)
+                .record(stats.getStatementCount());
+        Timer.builder("http.server.requests.db.time")
+                .tag("endpoint", endpoint)
+                .description("Database time per request")
+                .register(registry)
+                .record(stats.getDbTimeNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.isOverBudget()) {
+            registry.counter("query.budget.exceeded", "endpoint", endpoint).increment();
+            log.warn("{} issued {} statements, budget is {}", endpoint, stats.getBudgetedStatements(), stats.getBudget());
+        }
+
+        long durationNanos = System.nanoTime() - startNanos;
+        if (slowRequestLog.isSlow(durationNanos)) {
+            slowRequestLog.record(new SlowRequestLog.SlowRequest(
+                    Instant.now(),
+                    endpoint,
+                    request.getRequestURI(),
+                    traceId,
+                    response.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                    stats.getStatementCount(),
+                    stats.getDbTimeMillis(),
+                    stats.getStatements()));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.springjooqapi.metrics;
+
+import com.example.springjooqapi.exception.QueryBudgetExceededException;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Counts jOOQ statements and their execution time into the current request's QueryStats
+public class QueryStatsListener implements ExecuteListener {
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsListener.class);
+
+    private static final String START_NANOS = QueryStatsListener.class.getName() + ".start";
+
+    private final int repeatedShapeThreshold;
+    private final boolean enforceBudget;
+
+    public QueryStatsListener(int repeatedShapeThreshold, boolean enforceBudget) {
+        this.repeatedShapeThreshold = repeatedShapeThreshold;
+        this.enforceBudget = enforceBudget;
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        QueryStats stats = QueryStats.current();
+        if (stats == null) {
+            // Scheduled jobs and startup work are not part of a request
+            return;
+        }
+
+        String sql = sql(ctx);
+        int repeats = stats.recordStatement(sql);
+        if (repeats == repeatedShapeThreshold) {
+            log.warn("Possible N+1: {} ran the same statement {} times: {}",
+                    EndpointContext.current(), repeats, sql);
+        }
+        if (enforceBudget && stats.isOverBudget()) {
+            throw new QueryBudgetExceededException(EndpointContext.current(), stats.getBudget(), sql);
+        }
+        ctx.data(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null && ctx.data(START_NANOS) instanceof Long start) {
+            stats.recordTime(sql(ctx), System.nanoTime() - start);
+        }
+    }
+
+    private static String sql(ExecuteContext ctx) {
+        if (ctx.sql() != null) {
+            return ctx.sql();
+        }
+        String[] batch = ctx.batchSQL();
+        return batch.length > 0 ? batch[0] : "";
+    }
+}
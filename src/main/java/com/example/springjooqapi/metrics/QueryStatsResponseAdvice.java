@@ -0,0 +1,32 @@
+package com.example.springjooqapi.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Adds X-Query-Count and X-DB-Time-Ms just before the body is written, when the counts are final
+@ControllerAdvice
+public class QueryStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(QueryStats.ATTRIBUTE) instanceof QueryStats stats) {
+            response.getHeaders().set("X-Query-Count", String.valueOf(stats.getStatementCount()));
+            response.getHeaders().set("X-DB-Time-Ms", String.valueOf(stats.getDbTimeMillis()));
+        }
+        return body;
+    }
+}
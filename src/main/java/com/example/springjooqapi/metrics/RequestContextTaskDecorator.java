@@ -0,0 +1,17 @@
+package com.example.springjooqapi.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+// Carries the request's endpoint name, query stats and trace context onto worker threads
+public class RequestContextTaskDecorator implements TaskDecorator {
+    private final TaskDecorator endpoint = EndpointContext.taskDecorator();
+    private final TaskDecorator queryStats = QueryStats.taskDecorator();
+    // Current observation, and so the active span, via the context-propagation library
+    private final TaskDecorator observation = new ContextPropagatingTaskDecorator();
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return observation.decorate(endpoint.decorate(queryStats.decorate(runnable)));
+    }
+}
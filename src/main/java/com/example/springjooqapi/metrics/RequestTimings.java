@@ -0,0 +1,91 @@
+package com.example.springjooqapi.metrics;
+
+import jakarta.servlet.ServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where one request's time went: JWT authentication, the handler (including any bulkhead
+ * wait) and response serialization. Kept as a request attribute so each phase can be timed
+ * by the component that runs it, on whichever thread, and recorded by
+ * {@link LatencyBreakdownFilter} once the request completes.
+ */
+public class RequestTimings {
+    public static final String ATTRIBUTE = RequestTimings.class.getName();
+
+    private final AtomicLong authNanos = new AtomicLong();
+    private final AtomicLong serializationNanos = new AtomicLong();
+    private volatile boolean authChecked;
+    private volatile boolean serialized;
+    private volatile long handlerStartNanos;
+    private volatile long handlerEndNanos;
+
+    public static RequestTimings of(ServletRequest request) {
+        return request.getAttribute(ATTRIBUTE) instanceof RequestTimings timings ? timings : null;
+    }
+
+    // The request bound to the current thread by Spring MVC, if any
+    public static RequestTimings current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof RequestTimings timings
+                ? timings
+                : null;
+    }
+
+    // Called by the JWT filter only when the request carried a bearer token
+    public void addAuth(long nanos) {
+        authNanos.addAndGet(nanos);
+        authChecked = true;
+    }
+
+    // Called by the Jackson converter only, so empty, streamed and non-JSON bodies are not counted
+    public void addSerialization(long nanos) {
+        serializationNanos.addAndGet(nanos);
+        serialized = true;
+    }
+
+    // First dispatch only; the async dispatch that writes the result does not restart the handler
+    void handlerStarted(long nanos) {
+        if (handlerStartNanos == 0) {
+            handlerStartNanos = nanos;
+        }
+    }
+
+    void handlerCompleted(long nanos) {
+        handlerEndNanos = nanos;
+    }
+
+    public long getAuthNanos() {
+        return authNanos.get();
+    }
+
+    public long getSerializationNanos() {
+        return serializationNanos.get();
+    }
+
+    // Handler time without the serialization, which runs inside the handler invocation
+    public long getHandlerNanos() {
+        if (handlerStartNanos == 0 || handlerEndNanos == 0) {
+            return 0;
+        }
+        return Math.max(0, handlerEndNanos - handlerStartNanos - serializationNanos.get());
+    }
+
+    public boolean isAuthChecked() {
+        return authChecked;
+    }
+
+    public boolean isSerialized() {
+        return serialized;
+    }
+
+    // False when the request never reached a handler (rejected by security, unmapped path)
+    public boolean isHandled() {
+        return handlerStartNanos != 0 && handlerEndNanos != 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.springjooqapi.metrics;
+
+import com.example.springjooqapi.util.RateLimitedLog;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs slow statements (rate-limited) and a random sample of the others, in place of
+ * jOOQ's DEBUG logging of every statement, which is too expensive to leave on in production.
+ */
+public class SampledSqlLogListener implements ExecuteListener {
+    private static final Logger log = LoggerFactory.getLogger(SampledSqlLogListener.class);
+
+    private static final String START_NANOS = SampledSqlLogListener.class.getName() + ".start";
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final RateLimitedLog slowLog;
+
+    public SampledSqlLogListener(double sampleRate, long slowThresholdMillis, Duration slowLogInterval) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowLog = new RateLimitedLog(log, slowLogInterval);
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        ctx.data(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        if (!(ctx.data(START_NANOS) instanceof Long start)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (elapsed >= slowThresholdNanos) {
+            slowLog.warn("Slow SQL ({} ms) in {}: {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), EndpointContext.current(), sql(ctx));
+        } else if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled SQL ({} us) in {}: {}",
+                    TimeUnit.NANOSECONDS.toMicros(elapsed), EndpointContext.current(), sql(ctx));
+        }
+    }
+
+    private static String sql(ExecuteContext ctx) {
+        if (ctx.sql() != null) {
+            return ctx.sql();
+        }
+        String[] batch = ctx.batchSQL();
+        return batch.length > 0 ? batch[0] + " (batch of " + batch.length + ")" : "";
+    }
+}
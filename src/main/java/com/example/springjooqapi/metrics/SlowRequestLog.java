@@ -0,0 +1,67 @@
+package com.example.springjooqapi.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of the most recent requests that took longer than the threshold, with
+ * the statements they ran. Recording is a slot write, so it costs nothing on fast requests
+ * and never blocks; the oldest entry is overwritten once the ring is full.
+ */
+public class SlowRequestLog {
+    private final AtomicReferenceArray<SlowRequest> entries;
+    private final AtomicLong written = new AtomicLong();
+    private final long thresholdNanos;
+
+    public SlowRequestLog(int capacity, long thresholdMillis) {
+        this.entries = new AtomicReferenceArray<>(Math.max(1, capacity));
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    public boolean isSlow(long durationNanos) {
+        return durationNanos >= thresholdNanos;
+    }
+
+    public void record(SlowRequest request) {
+        int slot = (int) (written.getAndIncrement() % entries.length());
+        entries.set(slot, request);
+    }
+
+    // Newest first
+    public List<SlowRequest> recent() {
+        List<SlowRequest> requests = new ArrayList<>(entries.length());
+        for (int i = 0; i < entries.length(); i++) {
+            SlowRequest request = entries.get(i);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        requests.sort(Comparator.comparing(SlowRequest::completedAt).reversed());
+        return requests;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public long getRecordedCount() {
+        return written.get();
+    }
+
+    public record SlowRequest(
+            Instant completedAt,
+            String endpoint,
+            String uri,
+            String traceId,
+            int status,
+            long durationMillis,
+            int statementCount,
+            long dbTimeMillis,
+            List<QueryStats.StatementTiming> statements) {
+    }
+}
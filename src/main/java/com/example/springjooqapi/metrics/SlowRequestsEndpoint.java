@@ -0,0 +1,26 @@
+package com.example.springjooqapi.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/slowrequests: the slow request ring, newest first
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+    private final SlowRequestLog slowRequestLog;
+
+    public SlowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowRequests() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("thresholdMs", slowRequestLog.getThresholdMillis());
+        body.put("recorded", slowRequestLog.getRecordedCount());
+        body.put("requests", slowRequestLog.recent());
+        return body;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.springjooqapi.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+// Jackson converter that adds the time spent writing each JSON body to the request's serialization phase
+public class TimedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestTimings timings = RequestTimings.current();
+            if (timings != null) {
+                timings.addSerialization(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.springjooqapi.security;
 
+import com.example.springjooqapi.metrics.EndpointContext;
+import com.example.springjooqapi.metrics.RequestTimings;
+import com.example.springjooqapi.model.UserPrincipal;
+import com.example.springjooqapi.service.TokenRevocationService;
+import com.example.springjooqapi.util.RateLimitedLog;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -15,9 +25,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    // Invalid tokens are client input; one line per second is enough to notice an attack
+    private static final RateLimitedLog rejectedTokenLog = new RateLimitedLog(log, Duration.ofSeconds(1));
 
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
@@ -26,6 +41,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Lazy
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -43,14 +64,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        
-        try {
-            username = jwtTokenProvider.extractUsername(jwt);
+        long authStart = System.nanoTime();
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // One span for the whole check; signature verification and the user lookup are child spans
+        Observation observation = Observation.createNotStarted("auth.jwt", observationRegistry)
+                .lowCardinalityKeyValue("outcome", "unauthenticated")
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            Claims claims = Observation.createNotStarted("auth.jwt.verify", observationRegistry)
+                    .observe(() -> jwtTokenProvider.extractAllClaims(jwt));
+            username = claims.getSubject();
 
-                if (jwtTokenProvider.validateToken(jwt, userDetails)) {
+            // Revocation checks are in-memory lookups; a revoked token never reaches the user query
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !tokenRevocationService.isTokenRevoked(claims.getId())) {
+                // Runs before handler mapping, so its connection wait is reported under its own name
+                UserDetails userDetails;
+                EndpointContext.set("jwt-filter");
+                try {
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                } finally {
+                    EndpointContext.clear();
+                }
+
+                if (userDetails.isEnabled() && jwtTokenProvider.validateToken(claims, userDetails)
+                        && !isSessionRevoked(userDetails, claims)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -58,12 +96,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    observation.lowCardinalityKeyValue("outcome", "authenticated");
                 }
             }
         } catch (Exception e) {
-            logger.error("Cannot set user authentication: {}", e);
+            observation.lowCardinalityKeyValue("outcome", "rejected");
+            rejectedTokenLog.warn("Cannot set user authentication: {}", e.getMessage());
+            log.debug("Rejected token", e);
+        } finally {
+            observation.stop();
+            RequestTimings timings = RequestTimings.of(request);
+            if (timings != null) {
+                timings.addAuth(System.nanoTime() - authStart);
+            }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private boolean isSessionRevoked(UserDetails userDetails, Claims claims) {
+        return userDetails instanceof UserPrincipal userPrincipal
+                && tokenRevocationService.isSessionRevoked(userPrincipal.getId(),
+                        jwtTokenProvider.extractIssuedAt(claims));
+    }
 }
@@ -13,11 +13,15 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenProvider {
 
+    // iat only has whole seconds; session cutoffs are compared against this instead
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -32,12 +36,20 @@ public class JwtTokenProvider {
         return extractClaim(token, Claims::getExpiration);
     }
 
+    // Issue time in milliseconds; tokens from before the claim existed fall back to iat
+    public Date extractIssuedAt(Claims claims) {
+        if (claims.get(ISSUED_AT_MILLIS_CLAIM) instanceof Number millis) {
+            return new Date(millis.longValue());
+        }
+        return claims.getIssuedAt();
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
+    public Claims extractAllClaims(String token) {
         return Jwts
                 .parser()
                 .setSigningKey(getSignKey())
@@ -54,18 +66,26 @@ public class JwtTokenProvider {
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
 
+    // Same checks as above on already-parsed claims, avoiding a second signature verification
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
+    }
+
     public String generateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, username);
     }
 
     private String createToken(Map<String, Object> claims, String username) {
+        long now = System.currentTimeMillis();
+        claims.put(ISSUED_AT_MILLIS_CLAIM, now);
         return Jwts
                 .builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
                 .signWith(getSignKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
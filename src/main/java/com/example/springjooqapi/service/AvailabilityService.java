@@ -0,0 +1,200 @@
+package com.example.springjooqapi.service;
+
+import com.example.springjooqapi.sharding.ShardRouter;
+import com.example.springjooqapi.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jooq.DSLContext;
+import org.jooq.Record2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static com.example.springjooqapi.jooq.Tables.USER_DIRECTORY;
+
+/**
+ * Username/email availability for sign-up forms. Bloom filters of every registered
+ * username and email answer "definitely free" from memory; only possible collisions are
+ * confirmed with an indexed query. The filters are built by streaming the user directory
+ * and then follow new registrations, locally at once and from other nodes by polling.
+ * Registration itself still checks the database.
+ */
+@Service
+public class AvailabilityService {
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityService.class);
+
+    // Re-read rows slightly older than the newest one seen, so registrations that
+    // committed out of order between two refreshes are not missed
+    private static final long REFRESH_OVERLAP_SECONDS = 30;
+    private static final int FETCH_SIZE = 5000;
+
+    private final ShardRouter shardRouter;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile Filters filters;
+    private LocalDateTime cursor;
+
+    private final Counter usernameMemoryAnswers;
+    private final Counter usernameDatabaseAnswers;
+    private final Counter emailMemoryAnswers;
+    private final Counter emailDatabaseAnswers;
+
+    public AvailabilityService(
+            ShardRouter shardRouter,
+            MeterRegistry meterRegistry,
+            @Value("${auth.availability.bloom-expected-insertions:1000000}") int expectedInsertions,
+            @Value("${auth.availability.bloom-false-positive-rate:0.01}") double falsePositiveRate) {
+        this.shardRouter = shardRouter;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        for (String filter : new String[]{"username", "email"}) {
+            Function<Filters, BloomFilter> select = "username".equals(filter) ? Filters::usernames : Filters::emails;
+            Gauge.builder("availability.bloom.false.positive.rate", this,
+                            service -> service.filters == null ? Double.NaN : select.apply(service.filters).expectedFalsePositiveRate())
+                    .tag("filter", filter)
+                    .register(meterRegistry);
+            Gauge.builder("availability.bloom.memory", this,
+                            service -> service.filters == null ? 0 : select.apply(service.filters).getMemoryBytes())
+                    .tag("filter", filter)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        this.usernameMemoryAnswers = answers(meterRegistry, "username", "memory");
+        this.usernameDatabaseAnswers = answers(meterRegistry, "username", "database");
+        this.emailMemoryAnswers = answers(meterRegistry, "email", "memory");
+        this.emailDatabaseAnswers = answers(meterRegistry, "email", "database");
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        Filters current = filters;
+        if (current != null && !current.usernames().mightContain(username)) {
+            usernameMemoryAnswers.increment();
+            return true;
+        }
+        usernameDatabaseAnswers.increment();
+        return !shardRouter.isUsernameTaken(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        Filters current = filters;
+        if (current != null && !current.emails().mightContain(email)) {
+            emailMemoryAnswers.increment();
+            return true;
+        }
+        emailDatabaseAnswers.increment();
+        return !shardRouter.isEmailTaken(email);
+    }
+
+    // Called after a successful registration on this node
+    public synchronized void recordRegistration(String username, String email) {
+        if (filters != null) {
+            add(filters, username, email);
+        }
+    }
+
+    // Also runs at startup; periodic rebuilds drop deleted accounts and resize for growth
+    @Scheduled(fixedDelayString = "${auth.availability.rebuild-interval:86400000}")
+    public void rebuild() {
+        try {
+            DSLContext directory = shardRouter.directory();
+            LocalDateTime startedAt = LocalDateTime.now();
+            int count = directory.fetchCount(USER_DIRECTORY);
+            Filters rebuilt = new Filters(
+                    new BloomFilter(Math.max(expectedInsertions, count * 2), falsePositiveRate),
+                    new BloomFilter(Math.max(expectedInsertions, count * 2), falsePositiveRate));
+
+            // PostgreSQL only streams with a fetch size inside a transaction
+            directory.transaction(configuration -> {
+                try (Stream<Record2<String, String>> rows = configuration.dsl()
+                        .select(USER_DIRECTORY.USERNAME, USER_DIRECTORY.EMAIL)
+                        .from(USER_DIRECTORY)
+                        .fetchSize(FETCH_SIZE)
+                        .fetchStream()) {
+                    rows.forEach(row -> add(rebuilt, row.value1(), row.value2()));
+                }
+            });
+
+            synchronized (this) {
+                filters = rebuilt;
+                cursor = startedAt.minusSeconds(REFRESH_OVERLAP_SECONDS);
+            }
+            log.info("Availability filters built from {} users ({} KB)",
+                    count, (rebuilt.usernames().getMemoryBytes() + rebuilt.emails().getMemoryBytes()) / 1024);
+        } catch (Exception e) {
+            log.warn("Availability filter rebuild failed, checks fall back to the database: {}", e.getMessage());
+        }
+    }
+
+    // Picks up registrations made on other nodes
+    @Scheduled(fixedDelayString = "${auth.availability.refresh-interval:5000}")
+    public void refresh() {
+        LocalDateTime from;
+        Filters current;
+        synchronized (this) {
+            from = cursor;
+            current = filters;
+        }
+        if (current == null) {
+            return;
+        }
+
+        try {
+            var records = shardRouter.directory()
+                    .select(USER_DIRECTORY.USERNAME, USER_DIRECTORY.EMAIL, USER_DIRECTORY.CREATED_AT)
+                    .from(USER_DIRECTORY)
+                    .where(USER_DIRECTORY.CREATED_AT.ge(from))
+                    .fetch();
+
+            LocalDateTime newest = null;
+            synchronized (this) {
+                for (var record : records) {
+                    add(current, record.value1(), record.value2());
+                    LocalDateTime createdAt = record.value3();
+                    if (createdAt != null && (newest == null || createdAt.isAfter(newest))) {
+                        newest = createdAt;
+                    }
+                }
+                if (newest != null && filters == current) {
+                    cursor = newest.minusSeconds(REFRESH_OVERLAP_SECONDS);
+                }
+            }
+
+            if (mustGrow(current)) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("Availability filter refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean mustGrow(Filters current) {
+        Predicate<BloomFilter> saturated = filter -> filter.expectedFalsePositiveRate() > falsePositiveRate * 2;
+        return saturated.test(current.usernames()) || saturated.test(current.emails());
+    }
+
+    private static void add(Filters target, String username, String email) {
+        target.usernames().put(username);
+        target.emails().put(email);
+    }
+
+    private static Counter answers(MeterRegistry registry, String filter, String source) {
+        return Counter.builder("availability.checks")
+                .tag("filter", filter)
+                .tag("source", source)
+                .description("Availability checks answered from memory or confirmed in the database")
+                .register(registry);
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+    }
+}
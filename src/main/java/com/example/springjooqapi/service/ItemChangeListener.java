@@ -0,0 +1,132 @@
+package com.example.springjooqapi.service;
+
+import com.example.springjooqapi.dto.ItemChangeEvent;
+import com.example.springjooqapi.sharding.Shard;
+import com.example.springjooqapi.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds this node's LISTEN connections on the item_changes channel, one per shard, and
+ * hands every notification to {@link ItemChangeStreamService}. The connections are opened
+ * outside the Hikari pools: they stay checked out for the life of the node and would
+ * otherwise take a pool slot and be recycled by max-lifetime.
+ */
+@Component
+public class ItemChangeListener implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ItemChangeListener.class);
+
+    private static final String CHANNEL = "item_changes";
+
+    private final ShardRouter shardRouter;
+    private final ItemChangeStreamService streamService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int pollTimeoutMillis;
+
+    private volatile boolean running;
+    private final List<Thread> threads = new ArrayList<>();
+
+    public ItemChangeListener(
+            ShardRouter shardRouter,
+            ItemChangeStreamService streamService,
+            ObjectMapper objectMapper,
+            @Value("${item-changes.enabled:true}") boolean enabled,
+            @Value("${item-changes.listen-poll-timeout-ms:10000}") int pollTimeoutMillis) {
+        this.shardRouter = shardRouter;
+        this.streamService = streamService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.pollTimeoutMillis = pollTimeoutMillis;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (Shard shard : shardRouter.shards()) {
+            Thread thread = new Thread(() -> listen(shard), "item-changes-listener-" + shard.id());
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen(Shard shard) {
+        boolean reconnecting = false;
+        long backoffMillis = 1000;
+
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(shard.url(), shard.username(), shard.password())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for item changes on shard {}", shard.id());
+                if (reconnecting) {
+                    streamService.catchUpAll();
+                }
+                backoffMillis = 1000;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    // Also detects a dead connection: the read fails instead of hanging
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (Exception e) {
+                // Not only SQLException: a failed catch-up must not end the reconnect loop
+                if (!running) {
+                    return;
+                }
+                log.warn("Item change listener for shard {} disconnected, retrying in {} ms: {}",
+                        shard.id(), backoffMillis, e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 30000);
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            streamService.publish(objectMapper.readValue(payload, ItemChangeEvent.class));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed item change notification: {}", e.getMessage());
+        }
+    }
+}
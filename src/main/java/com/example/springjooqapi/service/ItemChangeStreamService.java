@@ -0,0 +1,355 @@
+package com.example.springjooqapi.service;
+
+import com.example.springjooqapi.dto.ItemChangeEvent;
+import com.example.springjooqapi.exception.StreamLimitExceededException;
+import com.example.springjooqapi.sharding.Shard;
+import com.example.springjooqapi.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.springjooqapi.jooq.Tables.ITEM_CHANGES;
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.min;
+import static org.jooq.impl.DSL.select;
+
+/**
+ * Server-sent event streams of a user's item changes. Changes arrive from
+ * {@link ItemChangeListener} (one LISTEN connection per node) and are queued per
+ * subscriber, so a slow client never blocks the listener or other clients. A client that
+ * falls behind by more than its queue, or reconnects with a Last-Event-ID, is caught up
+ * from the item_changes table; beyond replay-limit changes it gets a "resync" event and
+ * should reload its items.
+ */
+@Service
+public class ItemChangeStreamService {
+    private static final Logger log = LoggerFactory.getLogger(ItemChangeStreamService.class);
+
+    private static final String EVENT_CHANGE = "item-change";
+    private static final String EVENT_RESYNC = "resync";
+
+    private final ShardRouter shardRouter;
+    private final int maxStreams;
+    private final int maxStreamsPerUser;
+    private final int queueCapacity;
+    private final int replayLimit;
+    private final Duration streamTimeout;
+    private final Duration retention;
+
+    private final Map<Long, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final ExecutorService senders;
+
+    private final Counter overflowCounter;
+    private final Counter resyncCounter;
+
+    public ItemChangeStreamService(
+            ShardRouter shardRouter,
+            MeterRegistry meterRegistry,
+            @Value("${item-changes.max-streams:1000}") int maxStreams,
+            @Value("${item-changes.max-streams-per-user:5}") int maxStreamsPerUser,
+            @Value("${item-changes.queue-capacity:256}") int queueCapacity,
+            @Value("${item-changes.replay-limit:1000}") int replayLimit,
+            @Value("${item-changes.sender-threads:4}") int senderThreads,
+            @Value("${item-changes.stream-timeout:30m}") Duration streamTimeout,
+            @Value("${item-changes.retention:24h}") Duration retention) {
+        this.shardRouter = shardRouter;
+        this.maxStreams = maxStreams;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        this.queueCapacity = queueCapacity;
+        this.replayLimit = replayLimit;
+        this.streamTimeout = streamTimeout;
+        this.retention = retention;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "item-changes-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("item.changes.streams", openStreams, AtomicInteger::get)
+                .description("Open item change streams on this node")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("item.changes.overflows")
+                .description("Subscriber queues that overflowed and were caught up from the database")
+                .register(meterRegistry);
+        this.resyncCounter = Counter.builder("item.changes.resyncs")
+                .description("Subscribers told to reload their items because the change backlog could not be replayed")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            throw new StreamLimitExceededException("Too many open change streams, try again later");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(userId, emitter, lastEventId);
+
+        Set<Subscriber> userSubscribers = subscribersByUser.compute(userId, (id, existing) -> {
+            Set<Subscriber> set = existing != null ? existing : ConcurrentHashMap.newKeySet();
+            if (set.size() < maxStreamsPerUser) {
+                set.add(subscriber);
+            }
+            return set;
+        });
+        if (!userSubscribers.contains(subscriber)) {
+            openStreams.decrementAndGet();
+            throw new StreamLimitExceededException("At most " + maxStreamsPerUser + " change streams per user");
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(subscriber));
+
+        // Replay runs on a sender thread; live events received meanwhile wait in the queue
+        subscriber.schedule();
+        return emitter;
+    }
+
+    // Called on the listener thread: must not block
+    public void publish(ItemChangeEvent event) {
+        Set<Subscriber> userSubscribers = subscribersByUser.get(event.getUserId());
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    // Notifications sent while the LISTEN connection was down are lost; read them from the table
+    public void catchUpAll() {
+        subscribersByUser.values().forEach(set -> set.forEach(Subscriber::requestCatchUp));
+    }
+
+    @Scheduled(fixedDelayString = "${item-changes.heartbeat-interval:15000}")
+    public void heartbeat() {
+        subscribersByUser.values().forEach(set -> set.forEach(Subscriber::requestHeartbeat));
+    }
+
+    @Scheduled(fixedDelayString = "${item-changes.prune-interval:3600000}")
+    public void pruneChanges() {
+        for (Shard shard : shardRouter.shards()) {
+            pruneChanges(shard.dsl());
+        }
+    }
+
+    private void pruneChanges(DSLContext dsl) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = dsl.deleteFrom(ITEM_CHANGES)
+                    .where(ITEM_CHANGES.ID.in(select(ITEM_CHANGES.ID)
+                            .from(ITEM_CHANGES)
+                            .where(ITEM_CHANGES.CHANGED_AT.lt(cutoff))
+                            .limit(5000)))
+                    .execute();
+            total += deleted;
+        } while (deleted == 5000);
+
+        if (total > 0) {
+            log.debug("Pruned {} item changes older than {}", total, cutoff);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribersByUser.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            openStreams.decrementAndGet();
+            subscribersByUser.computeIfPresent(subscriber.userId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<ItemChangeEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean catchUpRequested;
+        private volatile boolean heartbeatRequested;
+
+        // Only touched by the sender thread currently draining this subscriber
+        private long lastSentId;
+        private Set<Long> replayedIds = Set.of();
+
+        Subscriber(Long userId, SseEmitter emitter, Long lastEventId) {
+            this.userId = userId;
+            this.emitter = emitter;
+            // Without Last-Event-ID the stream starts at the newest change (resolved on first drain)
+            this.lastSentId = lastEventId != null ? lastEventId : -1;
+            this.catchUpRequested = lastEventId != null;
+        }
+
+        void offer(ItemChangeEvent event) {
+            if (!queue.offer(event)) {
+                // Client is too slow: drop what is queued and read it back from the table later
+                overflowCounter.increment();
+                queue.clear();
+                catchUpRequested = true;
+            }
+            schedule();
+        }
+
+        void requestCatchUp() {
+            catchUpRequested = true;
+            schedule();
+        }
+
+        void requestHeartbeat() {
+            heartbeatRequested = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (closed.get() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (lastSentId < 0) {
+                    lastSentId = newestChangeId();
+                }
+                if (catchUpRequested) {
+                    catchUpRequested = false;
+                    catchUp();
+                }
+                ItemChangeEvent event;
+                while (!catchUpRequested && (event = queue.poll()) != null) {
+                    if (!replayedIds.contains(event.getChangeId())) {
+                        send(event);
+                    }
+                }
+                if (heartbeatRequested) {
+                    heartbeatRequested = false;
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; completing triggers remove()
+                emitter.completeWithError(e);
+                remove(this);
+                return;
+            } catch (Exception e) {
+                log.warn("Item change stream for user {} failed: {}", userId, e.getMessage());
+                emitter.completeWithError(e);
+                remove(this);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+
+            if (catchUpRequested || !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void catchUp() throws IOException {
+            // A user's changes all live on the user's shard, in that shard's id sequence
+            DSLContext dsl = shardRouter.forUser(userId);
+            Long oldestRetained = dsl.select(min(ITEM_CHANGES.ID)).from(ITEM_CHANGES).fetchOne(0, Long.class);
+            if (oldestRetained != null && oldestRetained > lastSentId + 1) {
+                // Part of the range was pruned already
+                resync();
+                return;
+            }
+
+            List<ItemChangeEvent> changes = dsl.select(
+                            ITEM_CHANGES.ID.as("changeId"),
+                            ITEM_CHANGES.USER_ID,
+                            ITEM_CHANGES.ITEM_ID,
+                            ITEM_CHANGES.OPERATION,
+                            ITEM_CHANGES.CHANGED_AT)
+                    .from(ITEM_CHANGES)
+                    .where(ITEM_CHANGES.USER_ID.eq(userId))
+                    .and(ITEM_CHANGES.ID.gt(lastSentId))
+                    .orderBy(ITEM_CHANGES.ID)
+                    .limit(replayLimit + 1)
+                    .fetchInto(ItemChangeEvent.class);
+
+            if (changes.size() > replayLimit) {
+                resync();
+                return;
+            }
+
+            // Live events for these rows may still be queued; skip them when draining
+            Set<Long> ids = new HashSet<>();
+            for (ItemChangeEvent change : changes) {
+                send(change);
+                ids.add(change.getChangeId());
+            }
+            replayedIds = ids;
+        }
+
+        // Tells the client to reload its items; the stream continues from the newest change
+        private void resync() throws IOException {
+            resyncCounter.increment();
+            queue.clear();
+            replayedIds = Set.of();
+            lastSentId = Math.max(lastSentId, newestChangeId());
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(lastSentId))
+                    .name(EVENT_RESYNC)
+                    .data("{\"reason\":\"reload items\"}", MediaType.APPLICATION_JSON));
+        }
+
+        private long newestChangeId() {
+            Long newest = shardRouter.forUser(userId).select(max(ITEM_CHANGES.ID))
+                    .from(ITEM_CHANGES)
+                    .where(ITEM_CHANGES.USER_ID.eq(userId))
+                    .fetchOne(0, Long.class);
+            return newest != null ? newest : 0;
+        }
+
+        private void send(ItemChangeEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getChangeId()))
+                    .name(EVENT_CHANGE)
+                    .data(event, MediaType.APPLICATION_JSON));
+            lastSentId = Math.max(lastSentId, event.getChangeId());
+        }
+    }
+}
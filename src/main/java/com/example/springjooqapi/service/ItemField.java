@@ -0,0 +1,56 @@
+package com.example.springjooqapi.service;
+
+import org.jooq.Field;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.springjooqapi.jooq.Tables.ITEMS;
+
+// Item properties selectable through the fields= parameter, with the column each one reads
+public enum ItemField {
+    ID("id", ITEMS.ID),
+    NAME("name", ITEMS.NAME),
+    DESCRIPTION("description", ITEMS.DESCRIPTION),
+    USER_ID("userId", ITEMS.USER_ID),
+    CREATED_AT("createdAt", ITEMS.CREATED_AT),
+    UPDATED_AT("updatedAt", ITEMS.UPDATED_AT),
+    VERSION("version", ITEMS.VERSION);
+
+    private final String jsonName;
+    private final Field<?> column;
+
+    ItemField(String jsonName, Field<?> column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public Field<?> getColumn() {
+        return column;
+    }
+
+    // Parses a comma-separated list such as "id,name"; null or blank means all fields
+    public static List<ItemField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+
+        List<ItemField> parsed = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            ItemField field = Arrays.stream(values())
+                    .filter(f -> f.jsonName.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown item field: " + trimmed));
+            if (!parsed.contains(field)) {
+                parsed.add(field);
+            }
+        }
+        return parsed;
+    }
+}
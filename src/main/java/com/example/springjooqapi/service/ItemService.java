@@ -1,65 +1,230 @@
 package com.example.springjooqapi.service;
 
+import com.example.springjooqapi.audit.AuditLog;
+import com.example.springjooqapi.dto.ItemBatchUpdateRequest;
+import com.example.springjooqapi.dto.ItemBatchUpdateResponse;
 import com.example.springjooqapi.dto.ItemRequest;
 import com.example.springjooqapi.dto.ItemResponse;
+import com.example.springjooqapi.dto.ItemStatsResponse;
+import com.example.springjooqapi.exception.PreconditionFailedException;
+import com.example.springjooqapi.sharding.ShardRouter;
+import io.micrometer.observation.annotation.Observed;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Record4;
+import org.jooq.Row4;
+import org.jooq.Table;
+import org.jooq.impl.SQLDataType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.example.springjooqapi.jooq.Tables.ITEMS;
+import static com.example.springjooqapi.jooq.Tables.USER_ITEM_STATS;
+import static org.jooq.impl.DSL.any;
+import static org.jooq.impl.DSL.cast;
+import static org.jooq.impl.DSL.noCondition;
+import static org.jooq.impl.DSL.row;
+import static org.jooq.impl.DSL.val;
+import static org.jooq.impl.DSL.values;
 
 @Service
+@Observed
 public class ItemService {
+    public static final int MAX_IDS_PER_REQUEST = 100;
 
     @Autowired
-    private DSLContext dsl;
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AuditLog auditLog;
 
     public ItemResponse createItem(Long userId, ItemRequest request) {
-        return dsl.insertInto(ITEMS)
+        ItemResponse item = shardRouter.forUser(userId).insertInto(ITEMS)
                 .set(ITEMS.NAME, request.getName())
                 .set(ITEMS.DESCRIPTION, request.getDescription())
                 .set(ITEMS.USER_ID, userId)
                 .returning()
                 .fetchOne()
                 .into(ItemResponse.class);
+        auditLog.record(userId, "item.create", "item", item.getId(), null);
+        return item;
     }
 
     public List<ItemResponse> getAllItemsForUser(Long userId) {
-        return dsl.selectFrom(ITEMS)
+        return shardRouter.forUser(userId).selectFrom(ITEMS)
                 .where(ITEMS.USER_ID.eq(userId))
                 .fetchInto(ItemResponse.class);
     }
 
+    // Multi-get: one "id = ANY(?)" query instead of a request per item
+    public List<ItemResponse> getItemsByIds(Long userId, List<Long> itemIds) {
+        return shardRouter.forUser(userId).selectFrom(ITEMS)
+                .where(byIds(userId, itemIds))
+                .orderBy(ITEMS.ID)
+                .fetchInto(ItemResponse.class);
+    }
+
+    // Sparse fieldset: only the requested columns are read and returned; itemIds may be null for all items
+    public List<Map<String, Object>> getItemFields(Long userId, List<Long> itemIds, List<ItemField> fields) {
+        Condition condition = itemIds == null ? ITEMS.USER_ID.eq(userId) : byIds(userId, itemIds);
+        return shardRouter.forUser(userId).select(fields.stream().map(ItemField::getColumn).toList())
+                .from(ITEMS)
+                .where(condition)
+                .orderBy(ITEMS.ID)
+                .fetch(record -> toFieldMap(record, fields));
+    }
+
+    public Optional<Map<String, Object>> getItemFieldsById(Long itemId, Long userId, List<ItemField> fields) {
+        return shardRouter.forUser(userId).select(fields.stream().map(ItemField::getColumn).toList())
+                .from(ITEMS)
+                .where(ITEMS.ID.eq(itemId).and(ITEMS.USER_ID.eq(userId)))
+                .fetchOptional(record -> toFieldMap(record, fields));
+    }
+
     public Optional<ItemResponse> getItemById(Long itemId, Long userId) {
         return Optional.ofNullable(
-                dsl.selectFrom(ITEMS)
+                shardRouter.forUser(userId).selectFrom(ITEMS)
                         .where(ITEMS.ID.eq(itemId).and(ITEMS.USER_ID.eq(userId)))
                         .fetchOne()
         ).map(record -> record.into(ItemResponse.class));
     }
 
-    public Optional<ItemResponse> updateItem(Long itemId, Long userId, ItemRequest request) {
-        int updated = dsl.update(ITEMS)
+    /**
+     * Updates and returns the item in one statement. With expectedVersions (from If-Match) the
+     * row is only written if its version is one of them; null means unconditional. Every
+     * update increments the version, so concurrent editors cannot overwrite each other.
+     */
+    public Optional<ItemResponse> updateItem(Long itemId, Long userId, ItemRequest request, List<Long> expectedVersions) {
+        DSLContext dsl = shardRouter.forUser(userId);
+        Condition versionMatches = expectedVersions == null ? noCondition() : ITEMS.VERSION.in(expectedVersions);
+        Optional<ItemResponse> updated = dsl.update(ITEMS)
                 .set(ITEMS.NAME, request.getName())
                 .set(ITEMS.DESCRIPTION, request.getDescription())
-                .where(ITEMS.ID.eq(itemId).and(ITEMS.USER_ID.eq(userId)))
-                .execute();
+                .set(ITEMS.VERSION, ITEMS.VERSION.plus(1))
+                .where(ITEMS.ID.eq(itemId).and(ITEMS.USER_ID.eq(userId)).and(versionMatches))
+                .returning()
+                .fetchOptionalInto(ItemResponse.class);
 
-        if (updated == 0) {
+        updated.ifPresent(item -> auditLog.record(userId, "item.update", "item", itemId, "version=" + item.getVersion()));
+        if (updated.isPresent() || expectedVersions == null) {
+            return updated;
+        }
+
+        // Only on failure: tell a missing item (404) from a stale version (412)
+        Long currentVersion = dsl.select(ITEMS.VERSION)
+                .from(ITEMS)
+                .where(ITEMS.ID.eq(itemId).and(ITEMS.USER_ID.eq(userId)))
+                .fetchOne(ITEMS.VERSION);
+        if (currentVersion == null) {
             return Optional.empty();
         }
+        throw new PreconditionFailedException("Item " + itemId + " was modified, current version is " + currentVersion,
+                currentVersion);
+    }
+
+    /**
+     * Applies every update whose version still matches in a single UPDATE ... FROM (VALUES ...)
+     * statement; the rest are reported as conflicts or not found rather than failing the batch.
+     */
+    public ItemBatchUpdateResponse updateItems(Long userId, List<ItemBatchUpdateRequest.ItemUpdate> updates) {
+        if (updates.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_IDS_PER_REQUEST + " items per request");
+        }
+        Set<Long> ids = new HashSet<>();
+        List<Row4<Long, Long, String, String>> rows = new ArrayList<>(updates.size());
+        for (ItemBatchUpdateRequest.ItemUpdate update : updates) {
+            if (!ids.add(update.getId())) {
+                throw new IllegalArgumentException("Item " + update.getId() + " appears more than once");
+            }
+            // Typed binds: Postgres infers the VALUES column types from them
+            rows.add(row(
+                    cast(val(update.getId()), SQLDataType.BIGINT),
+                    cast(val(update.getVersion()), SQLDataType.BIGINT),
+                    cast(val(update.getName()), SQLDataType.VARCHAR),
+                    cast(val(update.getDescription()), SQLDataType.CLOB)));
+        }
 
-        return getItemById(itemId, userId);
+        @SuppressWarnings("unchecked")
+        Table<Record4<Long, Long, String, String>> changes = values(rows.toArray(new Row4[0]))
+                .as("changes", "id", "version", "name", "description");
+
+        DSLContext dsl = shardRouter.forUser(userId);
+        List<ItemResponse> updated = dsl.update(ITEMS)
+                .set(ITEMS.NAME, changes.field("name", String.class))
+                .set(ITEMS.DESCRIPTION, changes.field("description", String.class))
+                .set(ITEMS.VERSION, ITEMS.VERSION.plus(1))
+                .from(changes)
+                .where(ITEMS.ID.eq(changes.field("id", Long.class)))
+                .and(ITEMS.USER_ID.eq(userId))
+                .and(ITEMS.VERSION.eq(changes.field("version", Long.class)))
+                .returning()
+                .fetchInto(ItemResponse.class);
+        updated.forEach(item -> auditLog.record(userId, "item.update", "item", item.getId(), "version=" + item.getVersion()));
+
+        List<ItemBatchUpdateResponse.Conflict> conflicts = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        if (updated.size() < updates.size()) {
+            updated.forEach(item -> ids.remove(item.getId()));
+            Map<Long, Long> currentVersions = dsl.select(ITEMS.ID, ITEMS.VERSION)
+                    .from(ITEMS)
+                    .where(byIds(userId, new ArrayList<>(ids)))
+                    .fetchMap(ITEMS.ID, ITEMS.VERSION);
+            for (ItemBatchUpdateRequest.ItemUpdate update : updates) {
+                if (!ids.contains(update.getId())) {
+                    continue;
+                }
+                Long currentVersion = currentVersions.get(update.getId());
+                if (currentVersion == null) {
+                    notFound.add(update.getId());
+                } else {
+                    conflicts.add(new ItemBatchUpdateResponse.Conflict(update.getId(), currentVersion));
+                }
+            }
+        }
+        return new ItemBatchUpdateResponse(updated, conflicts, notFound);
     }
 
     public boolean deleteItem(Long itemId, Long userId) {
-        int deleted = dsl.deleteFrom(ITEMS)
+        int deleted = shardRouter.forUser(userId).deleteFrom(ITEMS)
                 .where(ITEMS.ID.eq(itemId).and(ITEMS.USER_ID.eq(userId)))
                 .execute();
 
+        if (deleted > 0) {
+            auditLog.record(userId, "item.delete", "item", itemId, null);
+        }
         return deleted > 0;
     }
+
+    public ItemStatsResponse getItemStats(Long userId) {
+        // Primary-key lookup on the trigger-maintained summary, independent of item volume
+        return shardRouter.forUser(userId).select(USER_ITEM_STATS.USER_ID, USER_ITEM_STATS.ITEM_COUNT, USER_ITEM_STATS.LAST_MODIFIED_AT)
+                .from(USER_ITEM_STATS)
+                .where(USER_ITEM_STATS.USER_ID.eq(userId))
+                .fetchOptionalInto(ItemStatsResponse.class)
+                .orElse(new ItemStatsResponse(userId, 0L, null));
+    }
+
+    private Condition byIds(Long userId, List<Long> itemIds) {
+        if (itemIds.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_IDS_PER_REQUEST + " ids per request");
+        }
+        return ITEMS.USER_ID.eq(userId).and(ITEMS.ID.eq(any(itemIds.toArray(new Long[0]))));
+    }
+
+    private static Map<String, Object> toFieldMap(Record record, List<ItemField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (ItemField field : fields) {
+            values.put(field.getJsonName(), record.get(field.getColumn()));
+        }
+        return values;
+    }
 }
@@ -0,0 +1,107 @@
+package com.example.springjooqapi.service;
+
+import com.example.springjooqapi.sharding.Shard;
+import com.example.springjooqapi.sharding.ShardRouter;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.SQLDataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static com.example.springjooqapi.jooq.Tables.*;
+import static org.jooq.impl.DSL.*;
+
+@Service
+public class ItemStatsReconciliationService {
+    private static final Logger log = LoggerFactory.getLogger(ItemStatsReconciliationService.class);
+
+    private static final Field<Long> ACTUAL_ITEM_COUNT = field(
+            selectCount().from(ITEMS).where(ITEMS.USER_ID.eq(USER_ITEM_STATS.USER_ID))
+    ).cast(SQLDataType.BIGINT);
+
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+
+    public ItemStatsReconciliationService(
+            ShardRouter shardRouter,
+            @Value("${item-stats.reconcile-batch-size:500}") int batchSize) {
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${item-stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        int corrected = 0;
+        for (Shard shard : shardRouter.shards()) {
+            corrected += reconcile(shard.dsl());
+        }
+
+        if (corrected > 0) {
+            log.warn("Item statistics drift corrected for {} users", corrected);
+        } else {
+            log.debug("Item statistics consistent");
+        }
+    }
+
+    private int reconcile(DSLContext dsl) {
+        int corrected = insertMissingStats(dsl);
+
+        Long lastUserId = 0L;
+        while (lastUserId != null) {
+            Batch batch = reconcileBatch(dsl, lastUserId);
+            corrected += batch.corrected();
+            lastUserId = batch.lastUserId();
+        }
+        return corrected;
+    }
+
+    private Batch reconcileBatch(DSLContext dsl, Long afterUserId) {
+        return dsl.transactionResult(configuration -> {
+            DSLContext ctx = configuration.dsl();
+
+            // Locking the stats rows blocks item writes for these users (their trigger needs
+            // the same row), so the recount below cannot race with in-flight changes
+            List<Long> userIds = ctx.select(USER_ITEM_STATS.USER_ID)
+                    .from(USER_ITEM_STATS)
+                    .where(USER_ITEM_STATS.USER_ID.gt(afterUserId))
+                    .orderBy(USER_ITEM_STATS.USER_ID)
+                    .limit(batchSize)
+                    .forUpdate()
+                    .fetch(USER_ITEM_STATS.USER_ID);
+
+            if (userIds.isEmpty()) {
+                return new Batch(null, 0);
+            }
+
+            int corrected = ctx.update(USER_ITEM_STATS)
+                    .set(USER_ITEM_STATS.ITEM_COUNT, ACTUAL_ITEM_COUNT)
+                    .where(USER_ITEM_STATS.USER_ID.in(userIds))
+                    .and(USER_ITEM_STATS.ITEM_COUNT.ne(ACTUAL_ITEM_COUNT))
+                    .execute();
+
+            return new Batch(userIds.get(userIds.size() - 1), corrected);
+        });
+    }
+
+    // Users whose items predate the trigger or whose stats row was lost
+    private int insertMissingStats(DSLContext dsl) {
+        return dsl.insertInto(USER_ITEM_STATS,
+                        USER_ITEM_STATS.USER_ID, USER_ITEM_STATS.ITEM_COUNT, USER_ITEM_STATS.LAST_MODIFIED_AT)
+                .select(select(ITEMS.USER_ID, count().cast(SQLDataType.BIGINT), max(ITEMS.UPDATED_AT))
+                        .from(ITEMS)
+                        .where(notExists(selectOne()
+                                .from(USER_ITEM_STATS)
+                                .where(USER_ITEM_STATS.USER_ID.eq(ITEMS.USER_ID))))
+                        .groupBy(ITEMS.USER_ID))
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    private record Batch(Long lastUserId, int corrected) {
+    }
+}
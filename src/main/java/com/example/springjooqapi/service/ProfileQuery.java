@@ -0,0 +1,59 @@
+package com.example.springjooqapi.service;
+
+import org.jooq.SortField;
+
+import java.util.List;
+import java.util.Set;
+
+// Which parts of the profile aggregate to load: include=user,items plus items.limit / items.sort
+public record ProfileQuery(boolean includeUser, boolean includeItems, Integer itemsLimit, SortField<?> itemsSort) {
+
+    public static final ProfileQuery FULL = new ProfileQuery(true, true, null, null);
+
+    private static final Set<ItemField> SORTABLE_FIELDS =
+            Set.of(ItemField.ID, ItemField.NAME, ItemField.CREATED_AT, ItemField.UPDATED_AT);
+
+    // include == null keeps the full aggregate; an empty include loads the profile alone
+    public static ProfileQuery of(String include, Integer itemsLimit, String itemsSort) {
+        if (itemsLimit != null && itemsLimit < 0) {
+            throw new IllegalArgumentException("items.limit must not be negative");
+        }
+        if (include == null) {
+            return new ProfileQuery(true, true, itemsLimit, parseSort(itemsSort));
+        }
+
+        List<String> parts = List.of(include.split(","));
+        boolean includeUser = false;
+        boolean includeItems = false;
+        for (String part : parts) {
+            switch (part.trim()) {
+                case "user" -> includeUser = true;
+                case "items" -> includeItems = true;
+                case "" -> { }
+                default -> throw new IllegalArgumentException("Unknown include: " + part.trim());
+            }
+        }
+        return new ProfileQuery(includeUser, includeItems, itemsLimit, parseSort(itemsSort));
+    }
+
+    // "createdAt" or "createdAt,desc"
+    private static SortField<?> parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return null;
+        }
+
+        String[] parts = sort.split(",");
+        List<ItemField> fields = ItemField.parse(parts[0]);
+        ItemField field = fields.get(0);
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Items cannot be sorted by " + field.getJsonName());
+        }
+
+        String direction = parts.length > 1 ? parts[1].trim().toLowerCase() : "asc";
+        return switch (direction) {
+            case "asc" -> field.getColumn().asc();
+            case "desc" -> field.getColumn().desc();
+            default -> throw new IllegalArgumentException("Unknown sort direction: " + direction);
+        };
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.springjooqapi.service;
+
+import com.example.springjooqapi.audit.AuditLog;
+import com.example.springjooqapi.dto.PurgeJobResponse;
+import com.example.springjooqapi.sharding.ShardRouter;
+import io.micrometer.observation.annotation.Observed;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static com.example.springjooqapi.jooq.Tables.*;
+import static org.jooq.impl.DSL.*;
+
+@Service
+@Observed
+public class PurgeService {
+    private static final Logger log = LoggerFactory.getLogger(PurgeService.class);
+
+    public static final String SCOPE_ACCOUNT = "ACCOUNT";
+    public static final String SCOPE_ITEMS = "ITEMS";
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_DONE = "DONE";
+
+    // Jobs live on the primary; items and users on the user's shard
+    private final DSLContext dsl;
+    private final ShardRouter shardRouter;
+    private final TokenRevocationService tokenRevocationService;
+    private final AuditLog auditLog;
+    private final int chunkSize;
+    private final long chunkDelayMillis;
+    private final long leaseSeconds;
+
+    public PurgeService(
+            DSLContext dsl,
+            ShardRouter shardRouter,
+            TokenRevocationService tokenRevocationService,
+            AuditLog auditLog,
+            @Value("${purge.chunk-size:500}") int chunkSize,
+            @Value("${purge.chunk-delay-ms:50}") long chunkDelayMillis,
+            @Value("${purge.lease-seconds:60}") long leaseSeconds) {
+        this.dsl = dsl;
+        this.shardRouter = shardRouter;
+        this.tokenRevocationService = tokenRevocationService;
+        this.auditLog = auditLog;
+        this.chunkSize = chunkSize;
+        this.chunkDelayMillis = chunkDelayMillis;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public PurgeJobResponse requestAccountDeletion(Long userId) {
+        // Disable first: login is refused from here on, the data goes in the background
+        shardRouter.forUser(userId).update(USERS)
+                .set(USERS.ENABLED, false)
+                .where(USERS.ID.eq(userId))
+                .execute();
+
+        PurgeJobResponse job = dsl.transactionResult(configuration -> {
+            DSLContext ctx = configuration.dsl();
+
+            var existing = ctx.selectFrom(PURGE_JOBS)
+                    .where(PURGE_JOBS.USER_ID.eq(userId))
+                    .and(PURGE_JOBS.SCOPE.eq(SCOPE_ACCOUNT))
+                    .and(PURGE_JOBS.STATUS.ne(STATUS_DONE))
+                    .fetchOptionalInto(PurgeJobResponse.class);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+
+            return ctx.insertInto(PURGE_JOBS)
+                    .set(PURGE_JOBS.USER_ID, userId)
+                    .set(PURGE_JOBS.SCOPE, SCOPE_ACCOUNT)
+                    .returning()
+                    .fetchOne()
+                    .into(PurgeJobResponse.class);
+        });
+
+        tokenRevocationService.revokeAllSessions(userId);
+        auditLog.record(userId, "account.delete-requested", "purge_job", job.getId(), null);
+        return job;
+    }
+
+    public PurgeJobResponse requestItemPurge(Long userId) {
+        // Only items that exist now; items created while the purge runs are kept
+        Long maxItemId = shardRouter.forUser(userId)
+                .select(max(ITEMS.ID))
+                .from(ITEMS)
+                .where(ITEMS.USER_ID.eq(userId))
+                .fetchOne(0, Long.class);
+
+        PurgeJobResponse job = dsl.insertInto(PURGE_JOBS)
+                .set(PURGE_JOBS.USER_ID, userId)
+                .set(PURGE_JOBS.SCOPE, SCOPE_ITEMS)
+                .set(PURGE_JOBS.MAX_ITEM_ID, maxItemId)
+                .returning()
+                .fetchOne()
+                .into(PurgeJobResponse.class);
+        auditLog.record(userId, "items.purge-requested", "purge_job", job.getId(), "maxItemId=" + maxItemId);
+        return job;
+    }
+
+    public Optional<PurgeJobResponse> getJob(Long jobId, Long userId) {
+        return dsl.selectFrom(PURGE_JOBS)
+                .where(PURGE_JOBS.ID.eq(jobId).and(PURGE_JOBS.USER_ID.eq(userId)))
+                .fetchOptionalInto(PurgeJobResponse.class);
+    }
+
+    @Scheduled(fixedDelayString = "${purge.poll-interval:5000}")
+    public void processPendingJobs() {
+        Long jobId;
+        while ((jobId = claimNextJob()) != null) {
+            try {
+                if (!runJob(jobId)) {
+                    return;
+                }
+            } catch (Exception e) {
+                // The lease expires and the job is picked up again from where it stopped
+                log.warn("Purge job {} failed, will resume later: {}", jobId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // Claims one PENDING job, or a RUNNING one whose node stopped renewing its lease (e.g. after a restart)
+    private Long claimNextJob() {
+        return dsl.transactionResult(configuration -> {
+            DSLContext ctx = configuration.dsl();
+            Long jobId = ctx.select(PURGE_JOBS.ID)
+                    .from(PURGE_JOBS)
+                    .where(PURGE_JOBS.STATUS.in(STATUS_PENDING, STATUS_RUNNING))
+                    .and(PURGE_JOBS.LEASE_EXPIRES_AT.isNull().or(PURGE_JOBS.LEASE_EXPIRES_AT.lt(LocalDateTime.now())))
+                    .orderBy(PURGE_JOBS.ID)
+                    .limit(1)
+                    .forUpdate()
+                    .skipLocked()
+                    .fetchOne(PURGE_JOBS.ID);
+
+            if (jobId != null) {
+                ctx.update(PURGE_JOBS)
+                        .set(PURGE_JOBS.STATUS, STATUS_RUNNING)
+                        .set(PURGE_JOBS.LEASE_EXPIRES_AT, LocalDateTime.now().plusSeconds(leaseSeconds))
+                        .set(PURGE_JOBS.UPDATED_AT, LocalDateTime.now())
+                        .where(PURGE_JOBS.ID.eq(jobId))
+                        .execute();
+            }
+            return jobId;
+        });
+    }
+
+    // Returns false when interrupted (shutdown); the job resumes on the next claim
+    private boolean runJob(Long jobId) {
+        var job = dsl.selectFrom(PURGE_JOBS)
+                .where(PURGE_JOBS.ID.eq(jobId))
+                .fetchOne();
+
+        Condition itemsToDelete = ITEMS.USER_ID.eq(job.getUserId());
+        if (job.getMaxItemId() != null) {
+            itemsToDelete = itemsToDelete.and(ITEMS.ID.le(job.getMaxItemId()));
+        } else if (SCOPE_ITEMS.equals(job.getScope())) {
+            // The user had no items when the purge was requested
+            itemsToDelete = falseCondition();
+        }
+
+        DSLContext shard = shardRouter.forUser(job.getUserId());
+        int deleted;
+        do {
+            deleted = deleteChunk(jobId, shard, itemsToDelete);
+            if (deleted == chunkSize && !pause()) {
+                return false;
+            }
+        } while (deleted == chunkSize);
+
+        if (SCOPE_ACCOUNT.equals(job.getScope())) {
+            // Only small rows are left, so the cascade to user_profile and user_roles is cheap
+            shard.deleteFrom(USERS)
+                    .where(USERS.ID.eq(job.getUserId()))
+                    .execute();
+            // Frees the username and email for new registrations
+            shardRouter.unregister(job.getUserId());
+        }
+        dsl.update(PURGE_JOBS)
+                .set(PURGE_JOBS.STATUS, STATUS_DONE)
+                .set(PURGE_JOBS.LEASE_EXPIRES_AT, (LocalDateTime) null)
+                .set(PURGE_JOBS.UPDATED_AT, LocalDateTime.now())
+                .set(PURGE_JOBS.COMPLETED_AT, LocalDateTime.now())
+                .where(PURGE_JOBS.ID.eq(jobId))
+                .execute();
+
+        log.info("Purge job {} ({}) completed for user {}", jobId, job.getScope(), job.getUserId());
+        return true;
+    }
+
+    // One short transaction per chunk: locks are held briefly and WAL is written in small pieces.
+    // The job row may be on another database than the items; if the node dies in between,
+    // only the items_deleted progress lags by one chunk
+    private int deleteChunk(Long jobId, DSLContext shard, Condition itemsToDelete) {
+        int deleted = shard.deleteFrom(ITEMS)
+                .where(ITEMS.ID.in(select(ITEMS.ID).from(ITEMS).where(itemsToDelete).limit(chunkSize)))
+                .execute();
+
+        dsl.update(PURGE_JOBS)
+                .set(PURGE_JOBS.ITEMS_DELETED, PURGE_JOBS.ITEMS_DELETED.plus(deleted))
+                .set(PURGE_JOBS.LEASE_EXPIRES_AT, LocalDateTime.now().plusSeconds(leaseSeconds))
+                .set(PURGE_JOBS.UPDATED_AT, LocalDateTime.now())
+                .where(PURGE_JOBS.ID.eq(jobId))
+                .execute();
+        return deleted;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(chunkDelayMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
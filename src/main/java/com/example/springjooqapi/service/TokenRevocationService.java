@@ -0,0 +1,188 @@
+package com.example.springjooqapi.service;
+
+import com.example.springjooqapi.util.BloomFilter;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.springjooqapi.jooq.Tables.*;
+import static org.jooq.impl.DSL.*;
+
+@Service
+public class TokenRevocationService {
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Re-read rows slightly older than the newest one seen, so transactions that
+    // committed out of order between two refreshes are not missed
+    private static final long REFRESH_OVERLAP_SECONDS = 30;
+
+    private final DSLContext dsl;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final long tokenLifetimeMillis;
+
+    // Exact set of unexpired revoked token ids (jti -> token expiry), confirmed after a Bloom hit
+    private final Map<String, LocalDateTime> revokedTokens = new ConcurrentHashMap<>();
+    // "Revoke all sessions": tokens of the user issued at or before the cutoff are rejected.
+    // Cutoffs and issue times are both in milliseconds, so a login right after the revocation passes
+    private final Map<Long, LocalDateTime> sessionCutoffs = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+    private LocalDateTime tokenCursor;
+    private LocalDateTime sessionCursor;
+
+    public TokenRevocationService(
+            DSLContext dsl,
+            @Value("${jwt.revocation.bloom-expected-insertions:100000}") int expectedInsertions,
+            @Value("${jwt.revocation.bloom-false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${jwt.expiration}") long tokenLifetimeMillis) {
+        this.dsl = dsl;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    // Hot path, called for every authenticated request: memory lookups only
+    public boolean isTokenRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedTokens.containsKey(tokenId);
+    }
+
+    public boolean isSessionRevoked(Long userId, Date issuedAt) {
+        LocalDateTime cutoff = sessionCutoffs.get(userId);
+        return cutoff != null && issuedAt != null && !toLocalDateTime(issuedAt).isAfter(cutoff);
+    }
+
+    public void revokeToken(String tokenId, Long userId, Date expiresAt) {
+        LocalDateTime expiry = toLocalDateTime(expiresAt);
+        dsl.insertInto(REVOKED_TOKENS)
+                .set(REVOKED_TOKENS.JTI, tokenId)
+                .set(REVOKED_TOKENS.USER_ID, userId)
+                .set(REVOKED_TOKENS.EXPIRES_AT, expiry)
+                .onConflict(REVOKED_TOKENS.JTI)
+                .doNothing()
+                .execute();
+
+        // Apply locally right away; other nodes pick it up on their next refresh
+        addRevokedToken(tokenId, expiry);
+    }
+
+    public void revokeAllSessions(Long userId) {
+        LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        dsl.insertInto(SESSION_REVOCATIONS)
+                .set(SESSION_REVOCATIONS.USER_ID, userId)
+                .set(SESSION_REVOCATIONS.REVOKED_BEFORE, cutoff)
+                .execute();
+
+        sessionCutoffs.merge(userId, cutoff, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:5000}")
+    public void refresh() {
+        try {
+            refreshRevokedTokens();
+            refreshSessionCutoffs();
+        } catch (Exception e) {
+            log.warn("Token revocation refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval:3600000}",
+            initialDelayString = "${jwt.revocation.prune-interval:3600000}")
+    public void prune() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime sessionHorizon = now.minusNanos(tokenLifetimeMillis * 1_000_000);
+
+        synchronized (this) {
+            revokedTokens.values().removeIf(expiry -> expiry.isBefore(now));
+            sessionCutoffs.values().removeIf(cutoff -> cutoff.isBefore(sessionHorizon));
+            rebuildBloomFilter();
+        }
+
+        try {
+            dsl.deleteFrom(REVOKED_TOKENS)
+                    .where(REVOKED_TOKENS.EXPIRES_AT.lt(now))
+                    .execute();
+            dsl.deleteFrom(SESSION_REVOCATIONS)
+                    .where(SESSION_REVOCATIONS.REVOKED_BEFORE.lt(sessionHorizon))
+                    .execute();
+        } catch (Exception e) {
+            log.warn("Token revocation cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private void refreshRevokedTokens() {
+        var records = dsl.select(REVOKED_TOKENS.JTI, REVOKED_TOKENS.EXPIRES_AT, REVOKED_TOKENS.REVOKED_AT)
+                .from(REVOKED_TOKENS)
+                .where(REVOKED_TOKENS.EXPIRES_AT.gt(currentLocalDateTime()))
+                .and(tokenCursor == null ? noCondition() : REVOKED_TOKENS.REVOKED_AT.ge(tokenCursor))
+                .fetch();
+
+        LocalDateTime newest = null;
+        for (var record : records) {
+            addRevokedToken(record.get(REVOKED_TOKENS.JTI), record.get(REVOKED_TOKENS.EXPIRES_AT));
+            newest = max(newest, record.get(REVOKED_TOKENS.REVOKED_AT));
+        }
+        if (newest != null) {
+            tokenCursor = newest.minusSeconds(REFRESH_OVERLAP_SECONDS);
+        }
+    }
+
+    private void refreshSessionCutoffs() {
+        var records = dsl.select(SESSION_REVOCATIONS.USER_ID, SESSION_REVOCATIONS.REVOKED_BEFORE, SESSION_REVOCATIONS.CREATED_AT)
+                .from(SESSION_REVOCATIONS)
+                .where(SESSION_REVOCATIONS.REVOKED_BEFORE.gt(
+                        LocalDateTime.now().minusNanos(tokenLifetimeMillis * 1_000_000)))
+                .and(sessionCursor == null ? noCondition() : SESSION_REVOCATIONS.CREATED_AT.ge(sessionCursor))
+                .fetch();
+
+        LocalDateTime newest = null;
+        for (var record : records) {
+            sessionCutoffs.merge(record.get(SESSION_REVOCATIONS.USER_ID), record.get(SESSION_REVOCATIONS.REVOKED_BEFORE),
+                    (a, b) -> a.isAfter(b) ? a : b);
+            newest = max(newest, record.get(SESSION_REVOCATIONS.CREATED_AT));
+        }
+        if (newest != null) {
+            sessionCursor = newest.minusSeconds(REFRESH_OVERLAP_SECONDS);
+        }
+    }
+
+    private synchronized void addRevokedToken(String tokenId, LocalDateTime expiry) {
+        // Exact set first: a Bloom hit must never find the id missing from the set
+        revokedTokens.put(tokenId, expiry);
+        bloomFilter.put(tokenId);
+        if (revokedTokens.size() > bloomFilter.getExpectedInsertions()) {
+            rebuildBloomFilter();
+        }
+    }
+
+    private void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, revokedTokens.size() * 2), falsePositiveRate);
+        revokedTokens.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.springjooqapi.service;
+
+import com.example.springjooqapi.dto.AdminUserSummary;
+import com.example.springjooqapi.dto.UserDirectoryPage;
+import com.example.springjooqapi.sharding.Shard;
+import com.example.springjooqapi.sharding.ShardRouter;
+import io.micrometer.observation.annotation.Observed;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SelectConditionStep;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.example.springjooqapi.jooq.Tables.*;
+import static org.jooq.impl.DSL.*;
+
+@Service
+@Observed
+public class UserDirectoryService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    // Correlated count per user on the page: uses idx_items_user_id for each row
+    // instead of grouping the whole items table for every page
+    private static final Field<Integer> ITEM_COUNT = field(
+            selectCount().from(ITEMS).where(ITEMS.USER_ID.eq(USERS.ID))
+    ).as("item_count");
+
+    private final ShardRouter shardRouter;
+
+    public UserDirectoryService(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    public UserDirectoryPage listUsers(Long afterId, int limit, String country, String city, Boolean enabled) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Condition filters = filters(country, city, enabled);
+        Condition condition = afterId != null ? filters.and(USERS.ID.gt(afterId)) : filters;
+
+        // Keyset pagination on USERS.ID; fetch one extra row to know whether another page exists.
+        // Every shard returns its first page in parallel and the pages are merged by id
+        List<AdminUserSummary> users = shardRouter.fanOut(dsl -> directoryQuery(dsl, condition)
+                        .orderBy(USERS.ID)
+                        .limit(pageSize + 1)
+                        .fetchInto(AdminUserSummary.class))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(AdminUserSummary::getId))
+                .limit(pageSize + 1)
+                .toList();
+
+        Long nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = users.get(pageSize - 1).getId();
+        }
+
+        return new UserDirectoryPage(users, nextCursor);
+    }
+
+    public void exportUsers(String country, String city, Boolean enabled, Consumer<AdminUserSummary> consumer) {
+        // PostgreSQL only honours the fetch size (server-side cursor) inside a transaction,
+        // so the export streams rows instead of materialising the whole table.
+        // Shards are exported one after another: rows are ordered by id within each shard
+        for (Shard shard : shardRouter.shards()) {
+            shard.dsl().transaction(configuration -> {
+                try (Stream<AdminUserSummary> users = directoryQuery(configuration.dsl(), filters(country, city, enabled))
+                        .orderBy(USERS.ID)
+                        .fetchSize(EXPORT_FETCH_SIZE)
+                        .fetchStreamInto(AdminUserSummary.class)) {
+                    users.forEach(consumer);
+                }
+            });
+        }
+    }
+
+    private SelectConditionStep<? extends Record> directoryQuery(DSLContext ctx, Condition condition) {
+        return ctx.select(
+                        USERS.ID,
+                        USERS.USERNAME,
+                        USERS.EMAIL,
+                        USERS.FIRST_NAME,
+                        USERS.LAST_NAME,
+                        USERS.ENABLED,
+                        USERS.CREATED_AT,
+                        USER_PROFILE.COUNTRY,
+                        USER_PROFILE.CITY,
+                        ITEM_COUNT
+                )
+                .from(USERS)
+                .leftJoin(USER_PROFILE).on(USER_PROFILE.USER_ID.eq(USERS.ID))
+                .where(condition);
+    }
+
+    private Condition filters(String country, String city, Boolean enabled) {
+        Condition condition = noCondition();
+        if (country != null && !country.isBlank()) {
+            condition = condition.and(USER_PROFILE.COUNTRY.eq(country));
+        }
+        if (city != null && !city.isBlank()) {
+            condition = condition.and(USER_PROFILE.CITY.eq(city));
+        }
+        if (enabled != null) {
+            condition = condition.and(USERS.ENABLED.eq(enabled));
+        }
+        return condition;
+    }
+}
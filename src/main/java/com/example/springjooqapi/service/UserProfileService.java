@@ -1,129 +1,237 @@
 package com.example.springjooqapi.service;
 
+import com.example.springjooqapi.audit.AuditLog;
 import com.example.springjooqapi.dto.ItemResponse;
 import com.example.springjooqapi.dto.UserProfileRequest;
 import com.example.springjooqapi.dto.UserProfileResponse;
+import com.example.springjooqapi.exception.PreconditionFailedException;
+import com.example.springjooqapi.sharding.ShardRouter;
+import com.example.springjooqapi.jooq.tables.records.UserProfileRecord;
+import io.micrometer.observation.annotation.Observed;
+import org.jooq.CommonTableExpression;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
+import org.jooq.SelectFieldOrAsterisk;
+import org.jooq.SelectSelectStep;
+import org.jooq.Table;
 import org.springframework.stereotype.Service;
 
 import static com.example.springjooqapi.jooq.Tables.*;
+import static org.jooq.impl.DSL.multiset;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.noCondition;
+import static org.jooq.impl.DSL.select;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
+@Observed
 public class UserProfileService {
-    private final DSLContext dsl;
+    private final ShardRouter shardRouter;
+    private final AuditLog auditLog;
 
-    public UserProfileService(DSLContext dsl) {
-        this.dsl = dsl;
+    public UserProfileService(ShardRouter shardRouter, AuditLog auditLog) {
+        this.shardRouter = shardRouter;
+        this.auditLog = auditLog;
     }
 
+    // Insert or update in one statement (ON CONFLICT); last writer wins
     public UserProfileResponse createOrUpdateProfile(Long userId, UserProfileRequest request) {
-        // Check if profile already exists
-        var existingProfile = dsl.selectFrom(USER_PROFILE)
+        DSLContext dsl = shardRouter.forUser(userId);
+        Map<Field<?>, Object> values = profileValues(request);
+        UserProfileResponse profile = fetchWritten(dsl, userId, dsl.insertInto(USER_PROFILE)
+            .set(USER_PROFILE.USER_ID, userId)
+            .set(values)
+            .onConflict(USER_PROFILE.USER_ID)
+            .doUpdate()
+            .set(values)
+            .set(USER_PROFILE.VERSION, USER_PROFILE.VERSION.plus(1))
+            .returning())
+            .orElseThrow();
+        auditLog.record(userId, "profile.upsert", "profile", profile.getId(), "version=" + profile.getVersion());
+        return profile;
+    }
+
+    // If-None-Match: * - only creates; 412 if the user already has a profile
+    public UserProfileResponse createProfile(Long userId, UserProfileRequest request) {
+        DSLContext dsl = shardRouter.forUser(userId);
+        UserProfileResponse profile = fetchWritten(dsl, userId, dsl.insertInto(USER_PROFILE)
+            .set(USER_PROFILE.USER_ID, userId)
+            .set(profileValues(request))
+            .onConflictDoNothing()
+            .returning())
+            .orElseThrow(() -> {
+                Long currentVersion = currentVersion(dsl, userId);
+                return new PreconditionFailedException("Profile already exists, current version is " + currentVersion,
+                        currentVersion);
+            });
+        auditLog.record(userId, "profile.create", "profile", profile.getId(), "version=" + profile.getVersion());
+        return profile;
+    }
+
+    // If-Match - only updates an existing profile, and with expectedVersions only at one of them
+    public UserProfileResponse updateProfile(Long userId, UserProfileRequest request, List<Long> expectedVersions) {
+        DSLContext dsl = shardRouter.forUser(userId);
+        Condition versionMatches = expectedVersions == null ? noCondition() : USER_PROFILE.VERSION.in(expectedVersions);
+        UserProfileResponse profile = fetchWritten(dsl, userId, dsl.update(USER_PROFILE)
+            .set(profileValues(request))
+            .set(USER_PROFILE.VERSION, USER_PROFILE.VERSION.plus(1))
+            .where(USER_PROFILE.USER_ID.eq(userId).and(versionMatches))
+            .returning())
+            .orElseThrow(() -> {
+                Long currentVersion = currentVersion(dsl, userId);
+                return new PreconditionFailedException(currentVersion == null
+                        ? "Profile does not exist"
+                        : "Profile was modified, current version is " + currentVersion, currentVersion);
+            });
+        auditLog.record(userId, "profile.update", "profile", profile.getId(), "version=" + profile.getVersion());
+        return profile;
+    }
+
+    // Runs the write as a CTE and selects the full profile (user, items, stats) from its RETURNING
+    // row in the same statement; empty when the write matched no row
+    private Optional<UserProfileResponse> fetchWritten(DSLContext dsl, Long userId, ResultQuery<UserProfileRecord> write) {
+        CommonTableExpression<UserProfileRecord> written = name("written_profile").as(write);
+        return fetchProfile(dsl.with(written)::select, written, userId, ProfileQuery.FULL);
+    }
+
+    private static Map<Field<?>, Object> profileValues(UserProfileRequest request) {
+        Map<Field<?>, Object> values = new LinkedHashMap<>();
+        values.put(USER_PROFILE.BIO, request.getBio());
+        values.put(USER_PROFILE.AVATAR_URL, request.getAvatarUrl());
+        values.put(USER_PROFILE.PHONE, request.getPhone());
+        values.put(USER_PROFILE.DATE_OF_BIRTH, request.getDateOfBirth());
+        values.put(USER_PROFILE.COUNTRY, request.getCountry());
+        values.put(USER_PROFILE.CITY, request.getCity());
+        return values;
+    }
+
+    private static Long currentVersion(DSLContext dsl, Long userId) {
+        return dsl.select(USER_PROFILE.VERSION)
+            .from(USER_PROFILE)
             .where(USER_PROFILE.USER_ID.eq(userId))
-            .fetchOne();
-
-        if (existingProfile != null) {
-            // Update existing profile
-            dsl.update(USER_PROFILE)
-                .set(USER_PROFILE.BIO, request.getBio())
-                .set(USER_PROFILE.AVATAR_URL, request.getAvatarUrl())
-                .set(USER_PROFILE.PHONE, request.getPhone())
-                .set(USER_PROFILE.DATE_OF_BIRTH, request.getDateOfBirth())
-                .set(USER_PROFILE.COUNTRY, request.getCountry())
-                .set(USER_PROFILE.CITY, request.getCity())
-                .set(USER_PROFILE.UPDATED_AT, LocalDateTime.now())
-                .where(USER_PROFILE.USER_ID.eq(userId))
-                .execute();
-
-            return getProfileByUserId(userId).orElse(null);
-        } else {
-            // Create new profile
-            return dsl.insertInto(USER_PROFILE)
-                .set(USER_PROFILE.USER_ID, userId)
-                .set(USER_PROFILE.BIO, request.getBio())
-                .set(USER_PROFILE.AVATAR_URL, request.getAvatarUrl())
-                .set(USER_PROFILE.PHONE, request.getPhone())
-                .set(USER_PROFILE.DATE_OF_BIRTH, request.getDateOfBirth())
-                .set(USER_PROFILE.COUNTRY, request.getCountry())
-                .set(USER_PROFILE.CITY, request.getCity())
-                .returning()
-                .fetchOne()
-                .into(UserProfileResponse.class);
-        }
+            .fetchOne(USER_PROFILE.VERSION);
     }
 
     public Optional<UserProfileResponse> getProfileByUserId(Long userId) {
-        // Single query with LEFT JOIN to fetch profile, user, and all items
-        // This is similar to SQLAlchemy's selectinload/joinedload
-        var records = dsl.select(
-                        USER_PROFILE.asterisk(),
-                        USERS.asterisk(),
-                        ITEMS.asterisk()
-                )
-                .from(USER_PROFILE)
-                .join(USERS).on(USER_PROFILE.USER_ID.eq(USERS.ID))
-                .leftJoin(ITEMS).on(USERS.ID.eq(ITEMS.USER_ID))
-                .where(USER_PROFILE.USER_ID.eq(userId))
-                .fetch();
-
-        if (records.isEmpty()) {
+        return getProfileByUserId(userId, ProfileQuery.FULL);
+    }
+
+    public Optional<UserProfileResponse> getProfileByUserId(Long userId, ProfileQuery query) {
+        return fetchProfile(shardRouter.forUser(userId)::select, USER_PROFILE, userId, query);
+    }
+
+    // `profile` is the user_profile table, or the CTE of a write whose RETURNING row is selected
+    private Optional<UserProfileResponse> fetchProfile(
+            Function<Collection<SelectFieldOrAsterisk>, SelectSelectStep<Record>> select,
+            Table<?> profile,
+            Long userId,
+            ProfileQuery query) {
+        // Single query whose shape follows the include options: the profile alone is a lookup
+        // on USER_PROFILE.USER_ID; user info adds a join; items come back as a MULTISET
+        // (one nested collection instead of repeating the profile columns on every item row)
+        Field<Long> profileUserId = profile.field(USER_PROFILE.USER_ID);
+        List<SelectFieldOrAsterisk> fields = new ArrayList<>(List.of(
+                profile.asterisk(),
+                USER_ITEM_STATS.ITEM_COUNT,
+                USER_ITEM_STATS.LAST_MODIFIED_AT
+        ));
+        if (query.includeUser()) {
+            fields.addAll(List.of(
+                    USERS.ID,
+                    USERS.USERNAME,
+                    USERS.EMAIL,
+                    USERS.FIRST_NAME,
+                    USERS.LAST_NAME,
+                    USERS.ENABLED,
+                    USERS.CREATED_AT,
+                    USERS.UPDATED_AT
+            ));
+        }
+        Field<List<ItemResponse>> itemsField = query.includeItems() ? itemsMultiset(profileUserId, query) : null;
+        if (itemsField != null) {
+            fields.add(itemsField);
+        }
+
+        var from = query.includeUser()
+                ? profile.join(USERS).on(profileUserId.eq(USERS.ID))
+                : profile;
+
+        var record = select.apply(fields)
+                .from(from)
+                .leftJoin(USER_ITEM_STATS).on(profileUserId.eq(USER_ITEM_STATS.USER_ID))
+                .where(profileUserId.eq(userId))
+                .fetchOne();
+
+        if (record == null) {
             return Optional.empty();
         }
 
-        // Map the first record to profile and user info
-        var firstRecord = records.get(0);
-        
         UserProfileResponse response = new UserProfileResponse();
-        response.setId(firstRecord.get(USER_PROFILE.ID));
-        response.setUserId(firstRecord.get(USER_PROFILE.USER_ID));
-        response.setBio(firstRecord.get(USER_PROFILE.BIO));
-        response.setAvatarUrl(firstRecord.get(USER_PROFILE.AVATAR_URL));
-        response.setPhone(firstRecord.get(USER_PROFILE.PHONE));
-        response.setDateOfBirth(firstRecord.get(USER_PROFILE.DATE_OF_BIRTH));
-        response.setCountry(firstRecord.get(USER_PROFILE.COUNTRY));
-        response.setCity(firstRecord.get(USER_PROFILE.CITY));
-        response.setCreatedAt(firstRecord.get(USER_PROFILE.CREATED_AT));
-        response.setUpdatedAt(firstRecord.get(USER_PROFILE.UPDATED_AT));
-
-        // Set nested user info
-        UserProfileResponse.UserInfo userInfo = new UserProfileResponse.UserInfo(
-                firstRecord.get(USERS.ID),
-                firstRecord.get(USERS.USERNAME),
-                firstRecord.get(USERS.EMAIL),
-                firstRecord.get(USERS.FIRST_NAME),
-                firstRecord.get(USERS.LAST_NAME),
-                firstRecord.get(USERS.ENABLED),
-                firstRecord.get(USERS.CREATED_AT),
-                firstRecord.get(USERS.UPDATED_AT)
-        );
-        response.setUser(userInfo);
-
-        // Collect all items from the joined records (handling the one-to-many)
-        List<ItemResponse> items = records.stream()
-                .filter(record -> record.get(ITEMS.ID) != null) // Filter out null items (in case user has no items)
-                .map(record -> new ItemResponse(
-                        record.get(ITEMS.ID),
-                        record.get(ITEMS.NAME),
-                        record.get(ITEMS.DESCRIPTION),
-                        record.get(ITEMS.USER_ID),
-                        record.get(ITEMS.CREATED_AT),
-                        record.get(ITEMS.UPDATED_AT)
-                ))
-                .distinct() // Remove duplicates if any
-                .toList();
-        
-        response.setItems(items);
+        response.setId(record.get(profile.field(USER_PROFILE.ID)));
+        response.setUserId(record.get(profileUserId));
+        response.setBio(record.get(profile.field(USER_PROFILE.BIO)));
+        response.setAvatarUrl(record.get(profile.field(USER_PROFILE.AVATAR_URL)));
+        response.setPhone(record.get(profile.field(USER_PROFILE.PHONE)));
+        response.setDateOfBirth(record.get(profile.field(USER_PROFILE.DATE_OF_BIRTH)));
+        response.setCountry(record.get(profile.field(USER_PROFILE.COUNTRY)));
+        response.setCity(record.get(profile.field(USER_PROFILE.CITY)));
+        response.setCreatedAt(record.get(profile.field(USER_PROFILE.CREATED_AT)));
+        response.setUpdatedAt(record.get(profile.field(USER_PROFILE.UPDATED_AT)));
+        response.setVersion(record.get(profile.field(USER_PROFILE.VERSION)));
+
+        // No stats row means the user never had items
+        Long itemCount = record.get(USER_ITEM_STATS.ITEM_COUNT);
+        response.setItemCount(itemCount != null ? itemCount : 0L);
+        response.setItemsLastModifiedAt(record.get(USER_ITEM_STATS.LAST_MODIFIED_AT));
+
+        if (query.includeUser()) {
+            // Set nested user info
+            response.setUser(new UserProfileResponse.UserInfo(
+                    record.get(USERS.ID),
+                    record.get(USERS.USERNAME),
+                    record.get(USERS.EMAIL),
+                    record.get(USERS.FIRST_NAME),
+                    record.get(USERS.LAST_NAME),
+                    record.get(USERS.ENABLED),
+                    record.get(USERS.CREATED_AT),
+                    record.get(USERS.UPDATED_AT)
+            ));
+        }
+
+        if (itemsField != null) {
+            response.setItems(record.get(itemsField));
+        }
 
         return Optional.of(response);
     }
 
+    private Field<List<ItemResponse>> itemsMultiset(Field<Long> profileUserId, ProfileQuery query) {
+        var items = select(ITEMS.ID, ITEMS.NAME, ITEMS.DESCRIPTION, ITEMS.USER_ID, ITEMS.CREATED_AT, ITEMS.UPDATED_AT, ITEMS.VERSION)
+                .from(ITEMS)
+                .where(ITEMS.USER_ID.eq(profileUserId))
+                .orderBy(query.itemsSort() != null ? query.itemsSort() : ITEMS.ID.asc());
+
+        return multiset(query.itemsLimit() != null ? items.limit(query.itemsLimit()) : items)
+                .as("items")
+                .convertFrom(result -> result.into(ItemResponse.class));
+    }
+
     public void deleteProfile(Long userId) {
-        dsl.deleteFrom(USER_PROFILE)
+        int deleted = shardRouter.forUser(userId).deleteFrom(USER_PROFILE)
             .where(USER_PROFILE.USER_ID.eq(userId))
             .execute();
+        if (deleted > 0) {
+            auditLog.record(userId, "profile.delete", "profile", null, null);
+        }
     }
 }
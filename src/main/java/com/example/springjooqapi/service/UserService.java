@@ -1,6 +1,10 @@
 package com.example.springjooqapi.service;
 
+import com.example.springjooqapi.jooq.tables.records.UsersRecord;
 import com.example.springjooqapi.model.UserPrincipal;
+import com.example.springjooqapi.sharding.ShardRouter;
+import com.example.springjooqapi.sharding.UserPlacement;
+import io.micrometer.observation.annotation.Observed;
 import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,24 +19,62 @@ import java.util.List;
 import static com.example.springjooqapi.jooq.Tables.*;
 
 @Service
+@Observed
 public class UserService implements UserDetailsService {
 
     @Autowired
-    private DSLContext dsl;
+    private ShardRouter shardRouter;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AvailabilityService availabilityService;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        var userRecord = dsl.selectFrom(USERS)
-                .where(USERS.USERNAME.eq(username))
-                .fetchOne();
+        if (!shardRouter.isSharded()) {
+            // Everything is on the primary: no directory lookup
+            DSLContext dsl = shardRouter.directory();
+            var userRecord = dsl.selectFrom(USERS)
+                    .where(USERS.USERNAME.eq(username))
+                    .fetchOne();
+            if (userRecord == null) {
+                throw new UsernameNotFoundException("User not found: " + username);
+            }
+            return toPrincipal(dsl, userRecord);
+        }
 
+        // The directory on the primary knows which shard holds the user; placements are cached
+        UserPlacement placement = placementOf(username);
+        DSLContext dsl = shardRouter.shard(placement.shardId());
+        UsersRecord userRecord = findUser(dsl, placement, username);
+        if (userRecord == null) {
+            // Stale cached placement (user purged, username taken again): ask the directory again
+            shardRouter.forgetUsername(username);
+            placement = placementOf(username);
+            dsl = shardRouter.shard(placement.shardId());
+            userRecord = findUser(dsl, placement, username);
+        }
         if (userRecord == null) {
             throw new UsernameNotFoundException("User not found: " + username);
         }
+        return toPrincipal(dsl, userRecord);
+    }
 
+    private UserPlacement placementOf(String username) {
+        return shardRouter.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    private UsersRecord findUser(DSLContext dsl, UserPlacement placement, String username) {
+        return dsl.selectFrom(USERS)
+                .where(USERS.ID.eq(placement.userId()))
+                .and(USERS.USERNAME.eq(username))
+                .fetchOne();
+    }
+
+    private UserPrincipal toPrincipal(DSLContext dsl, UsersRecord userRecord) {
         // Fetch user roles
         List<String> roles = dsl.select(ROLES.NAME)
                 .from(ROLES)
@@ -58,17 +100,34 @@ public class UserService implements UserDetailsService {
     public UserPrincipal createUser(String username, String email, String password, 
                                    String firstName, String lastName) {
         // Check if username exists
-        if (dsl.fetchExists(USERS, USERS.USERNAME.eq(username))) {
+        if (shardRouter.isUsernameTaken(username)) {
             throw new RuntimeException("Username already exists");
         }
 
         // Check if email exists
-        if (dsl.fetchExists(USERS, USERS.EMAIL.eq(email))) {
+        if (shardRouter.isEmailTaken(email)) {
             throw new RuntimeException("Email already exists");
         }
 
+        // The directory entry reserves username and email across shards and assigns the id
+        UserPlacement placement = shardRouter.register(username, email);
+        UserPrincipal user;
+        try {
+            user = insertUser(shardRouter.shard(placement.shardId()), placement.userId(),
+                    username, email, password, firstName, lastName);
+        } catch (RuntimeException e) {
+            shardRouter.unregister(placement.userId());
+            throw e;
+        }
+        availabilityService.recordRegistration(username, email);
+        return user;
+    }
+
+    private UserPrincipal insertUser(DSLContext dsl, Long userId, String username, String email, String password,
+                                     String firstName, String lastName) {
         // Create user
         var userRecord = dsl.insertInto(USERS)
+                .set(USERS.ID, userId)
                 .set(USERS.USERNAME, username)
                 .set(USERS.EMAIL, email)
                 .set(USERS.PASSWORD, passwordEncoder.encode(password))
@@ -101,10 +160,10 @@ public class UserService implements UserDetailsService {
     }
 
     public boolean existsByUsername(String username) {
-        return dsl.fetchExists(USERS, USERS.USERNAME.eq(username));
+        return shardRouter.isUsernameTaken(username);
     }
 
     public boolean existsByEmail(String email) {
-        return dsl.fetchExists(USERS, USERS.EMAIL.eq(email));
+        return shardRouter.isEmailTaken(email);
     }
 }
@@ -0,0 +1,13 @@
+package com.example.springjooqapi.sharding;
+
+import org.jooq.DSLContext;
+
+// One database holding users, items and user_profile rows for its share of user ids
+public record Shard(int id, DSLContext dsl, String url, String username, String password) {
+
+    // Credentials stay out of log lines and exception messages
+    @Override
+    public String toString() {
+        return "Shard[id=" + id + ", url=" + url + "]";
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.springjooqapi.sharding;
+
+import com.example.springjooqapi.metrics.RequestContextTaskDecorator;
+import com.example.springjooqapi.util.ConsistentHashRing;
+import org.jooq.DSLContext;
+import org.jooq.Sequence;
+import org.jooq.impl.SQLDataType;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.example.springjooqapi.jooq.Tables.USER_DIRECTORY;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.sequence;
+
+/**
+ * Finds the database for a user. New users are placed by consistent hashing of their id;
+ * the user_directory table on the primary records the placement (and maps usernames to
+ * ids), so it stays authoritative when shards are added or users are moved. With no
+ * additional shards configured every call resolves to the primary without a lookup.
+ */
+public class ShardRouter {
+    private static final Sequence<Long> USER_ID_SEQUENCE = sequence(name("user_directory_id_seq"), SQLDataType.BIGINT);
+
+    // Placements practically never change; a bounded cache avoids a directory query per request
+    private static final int MAX_CACHED_PLACEMENTS = 100_000;
+
+    private final List<Shard> shards;
+    private final DSLContext directory;
+    private final ConsistentHashRing ring;
+    private final Map<Long, Integer> placements = new ConcurrentHashMap<>();
+    // Username lookups on every authenticated request; stale entries are dropped by forgetUsername
+    private final Map<String, UserPlacement> usernames = new ConcurrentHashMap<>();
+    private final ExecutorService fanOutExecutor;
+    private final TaskDecorator taskDecorator = new RequestContextTaskDecorator();
+    private final List<Runnable> closeActions;
+
+    public ShardRouter(List<Shard> shards, int virtualNodes, int fanOutThreads, List<Runnable> closeActions) {
+        this.shards = List.copyOf(shards);
+        this.directory = shards.get(0).dsl();
+        this.ring = new ConsistentHashRing(shards.size(), virtualNodes);
+        this.closeActions = closeActions;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(fanOutThreads, shards.size())), runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    // Database of the user directory and of global tables (revocations, purge jobs)
+    public DSLContext directory() {
+        return directory;
+    }
+
+    public DSLContext shard(int shardId) {
+        return shards.get(shardId).dsl();
+    }
+
+    public DSLContext forUser(Long userId) {
+        if (!isSharded()) {
+            return directory;
+        }
+        return shard(shardIdOf(userId));
+    }
+
+    public int shardIdOf(Long userId) {
+        if (!isSharded()) {
+            return 0;
+        }
+        Integer cached = placements.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        Integer shardId = directory.select(USER_DIRECTORY.SHARD_ID)
+                .from(USER_DIRECTORY)
+                .where(USER_DIRECTORY.USER_ID.eq(userId))
+                .fetchOne(USER_DIRECTORY.SHARD_ID);
+        if (shardId == null) {
+            // Unknown (e.g. already purged) user: where it would have been placed
+            return ring.nodeFor(userId);
+        }
+        remember(userId, shardId);
+        return shardId;
+    }
+
+    public Optional<UserPlacement> findByUsername(String username) {
+        UserPlacement cached = usernames.get(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<UserPlacement> placement = directory.select(USER_DIRECTORY.USER_ID, USER_DIRECTORY.SHARD_ID)
+                .from(USER_DIRECTORY)
+                .where(USER_DIRECTORY.USERNAME.eq(username))
+                .fetchOptional(record -> new UserPlacement(record.value1(), record.value2()));
+        placement.ifPresent(p -> {
+            remember(p.userId(), p.shardId());
+            if (usernames.size() >= MAX_CACHED_PLACEMENTS) {
+                usernames.clear();
+            }
+            usernames.put(username, p);
+        });
+        return placement;
+    }
+
+    // The cached placement did not lead to the user (purged on another node, username reused)
+    public void forgetUsername(String username) {
+        usernames.remove(username);
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return directory.fetchExists(USER_DIRECTORY, USER_DIRECTORY.USERNAME.eq(username));
+    }
+
+    public boolean isEmailTaken(String email) {
+        return directory.fetchExists(USER_DIRECTORY, USER_DIRECTORY.EMAIL.eq(email));
+    }
+
+    // Reserves the username and email globally and allocates the user id and its shard
+    public UserPlacement register(String username, String email) {
+        Long userId = directory.nextval(USER_ID_SEQUENCE);
+        int shardId = ring.nodeFor(userId);
+        directory.insertInto(USER_DIRECTORY)
+                .set(USER_DIRECTORY.USER_ID, userId)
+                .set(USER_DIRECTORY.USERNAME, username)
+                .set(USER_DIRECTORY.EMAIL, email)
+                .set(USER_DIRECTORY.SHARD_ID, shardId)
+                .execute();
+        remember(userId, shardId);
+        return new UserPlacement(userId, shardId);
+    }
+
+    public void unregister(Long userId) {
+        directory.deleteFrom(USER_DIRECTORY)
+                .where(USER_DIRECTORY.USER_ID.eq(userId))
+                .execute();
+        placements.remove(userId);
+        usernames.values().removeIf(placement -> placement.userId().equals(userId));
+    }
+
+    // Runs the query on every shard in parallel; results are in shard order
+    public <T> List<T> fanOut(Function<DSLContext, T> query) {
+        if (!isSharded()) {
+            return List.of(query.apply(directory));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (Shard shard : shards) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            fanOutExecutor.execute(taskDecorator.decorate(() -> {
+                try {
+                    future.complete(query.apply(shard.dsl()));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }));
+            futures.add(future);
+        }
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        fanOutExecutor.shutdown();
+        closeActions.forEach(Runnable::run);
+    }
+
+    private void remember(Long userId, int shardId) {
+        if (placements.size() >= MAX_CACHED_PLACEMENTS) {
+            placements.clear();
+        }
+        placements.put(userId, shardId);
+    }
+}
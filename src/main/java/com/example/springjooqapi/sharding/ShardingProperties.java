@@ -0,0 +1,25 @@
+package com.example.springjooqapi.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+    // Databases in addition to the primary data source, which is always shard 0 and holds the
+    // user directory and the global tables. Empty means unsharded.
+    private List<ShardDataSource> shards = new ArrayList<>();
+    private int virtualNodes = 128;
+    private int fanOutThreads = 8;
+    private int maximumPoolSize = 10;
+
+    @Data
+    public static class ShardDataSource {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.springjooqapi.sharding;
+
+public record UserPlacement(Long userId, int shardId) {
+}
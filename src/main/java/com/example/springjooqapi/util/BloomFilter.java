@@ -0,0 +1,95 @@
+package com.example.springjooqapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. Lookups are lock-free and never touch the
+ * database: a negative answer is definite, a positive one must be confirmed elsewhere.
+ * Elements cannot be removed, so callers rebuild a fresh filter to drop stale entries.
+ */
+public class BloomFilter {
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+    private final int expectedInsertions;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    public void put(String value) {
+        long hash = fnv1a(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = fnv1a(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    public long getMemoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    // Current false-positive probability given the bits actually set, (setBits / m)^k
+    public double expectedFalsePositiveRate() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) setBits / numBits, numHashes);
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.springjooqapi.util;
+
+import com.example.springjooqapi.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for one group of endpoints, so a slow group cannot starve the
+ * shared servlet pool or the other groups. Work beyond threads + queue capacity is
+ * rejected with {@link BulkheadFullException}; work exceeding the timeout completes
+ * with {@link TimeoutException}.
+ */
+public class Bulkhead {
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final TaskDecorator taskDecorator;
+
+    private final Timer queueTimer;
+    private final Timer executionTimer;
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+
+    // The decorator runs on the submitting thread, so it can capture request-scoped state
+    public Bulkhead(String name, int maxThreads, int queueCapacity, Duration timeout, MeterRegistry registry,
+                    TaskDecorator taskDecorator) {
+        this.name = name;
+        this.timeout = timeout;
+        this.taskDecorator = taskDecorator;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                maxThreads,
+                maxThreads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bulkhead-" + name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.queueTimer = Timer.builder("bulkhead.queue.time")
+                .tag("bulkhead", name)
+                .description("Time tasks wait for a bulkhead thread")
+                .register(registry);
+        this.executionTimer = Timer.builder("bulkhead.execution.time")
+                .tag("bulkhead", name)
+                .register(registry);
+        this.rejectedCounter = Counter.builder("bulkhead.rejected")
+                .tag("bulkhead", name)
+                .register(registry);
+        this.timeoutCounter = Counter.builder("bulkhead.timeouts")
+                .tag("bulkhead", name)
+                .register(registry);
+        Gauge.builder("bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .tag("bulkhead", name)
+                .register(registry);
+        Gauge.builder("bulkhead.queued", executor, e -> e.getQueue().size())
+                .tag("bulkhead", name)
+                .register(registry);
+        Gauge.builder("bulkhead.max.threads", executor, ThreadPoolExecutor::getMaximumPoolSize)
+                .tag("bulkhead", name)
+                .register(registry);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+
+        Future<?> running;
+        try {
+            running = executor.submit(taskDecorator.decorate(() -> {
+                long startedAt = System.nanoTime();
+                queueTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                if (result.isDone()) {
+                    // Timed out while still queued; the caller already got its 503
+                    return;
+                }
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    executionTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            result.completeExceptionally(new BulkheadFullException(name));
+            return result;
+        }
+
+        result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error instanceof TimeoutException) {
+                        timeoutCounter.increment();
+                        running.cancel(true);
+                    }
+                });
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.springjooqapi.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps keys onto nodes 0..n-1 so that adding a node moves only about 1/n of the keys.
+ * Each node owns several points ("virtual nodes") on the ring to even out the load.
+ */
+public class ConsistentHashRing {
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    public ConsistentHashRing(int nodes, int virtualNodesPerNode) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        for (int node = 0; node < nodes; node++) {
+            for (int replica = 0; replica < virtualNodesPerNode; replica++) {
+                ring.put(mix(((long) node << 32) | replica), node);
+            }
+        }
+    }
+
+    public int nodeFor(long key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(mix(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    // MurmurHash3 finalizer; spreads sequential ids evenly around the ring
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
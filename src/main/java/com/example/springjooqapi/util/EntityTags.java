@@ -0,0 +1,46 @@
+package com.example.springjooqapi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong ETags derived from a row's version column, and parsing of the If-Match and
+ * If-None-Match headers that carry them back.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    public static boolean isWildcard(String header) {
+        return header != null && header.trim().equals("*");
+    }
+
+    /**
+     * Versions listed in an If-Match header, or null when the header is absent or "*" (no
+     * version condition). Weak and malformed tags never match a strong ETag, so they are
+     * skipped; a header containing only such tags yields an empty list, which nothing matches.
+     */
+    public static List<Long> parseVersions(String header) {
+        if (header == null || isWildcard(header)) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String tag : header.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.length() < 3 || !trimmed.startsWith("\"") || !trimmed.endsWith("\"")) {
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(trimmed.substring(1, trimmed.length() - 1)));
+            } catch (NumberFormatException e) {
+                // Not one of ours
+            }
+        }
+        return versions;
+    }
+}
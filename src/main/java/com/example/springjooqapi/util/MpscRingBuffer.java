@@ -0,0 +1,84 @@
+package com.example.springjooqapi.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producer threads and a single consumer thread, on a
+ * power-of-two ring of slots (Vyukov's bounded queue). Each slot carries a sequence number
+ * that says whether it is free for the producer at a position or filled for the consumer,
+ * so producers only contend on one CAS and never wait for the consumer; a full ring makes
+ * {@link #offer} return false instead of blocking or growing.
+ */
+public class MpscRingBuffer<E> {
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer only; volatile for size()
+    private volatile long head;
+
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // Any thread
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    // Publishes the element: the consumer reads the sequence before the slot
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this slot yet: full
+                return false;
+            } else {
+                // Another producer took this position
+                position = tail.get();
+            }
+        }
+    }
+
+    // Consumer thread only; returns the number of elements handed to the action
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<E> action, int limit) {
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // Empty, or a producer has claimed the slot but not written it yet
+                break;
+            }
+            E element = (E) elements[index];
+            elements[index] = null;
+            sequences.set(index, position + elements.length);
+            position++;
+            head = position;
+            drained++;
+            action.accept(element);
+        }
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
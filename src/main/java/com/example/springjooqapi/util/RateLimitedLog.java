@@ -0,0 +1,48 @@
+package com.example.springjooqapi.util;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes at most one warning per interval to a logger. Messages in between are only
+ * counted, and the count is appended to the next message that gets through, so a burst
+ * (a scanner sending bad tokens, a slow database) cannot flood the log or the appender queue.
+ */
+public class RateLimitedLog {
+    private final Logger log;
+    private final long intervalNanos;
+    private final AtomicLong nextAllowedNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLog(Logger log, Duration interval) {
+        this.log = log;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    public void warn(String format, Object... args) {
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        if (!tryAcquire()) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long dropped = suppressed.getAndSet(0);
+        if (dropped == 0) {
+            log.warn(format, args);
+        } else {
+            Object[] withCount = Arrays.copyOf(args, args.length + 1);
+            withCount[args.length] = dropped;
+            log.warn(format + " ({} similar messages suppressed)", withCount);
+        }
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        long next = nextAllowedNanos.get();
+        return now - next >= 0 && nextAllowedNanos.compareAndSet(next, now + intervalNanos);
+    }
+}
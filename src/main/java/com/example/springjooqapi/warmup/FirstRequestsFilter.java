@@ -0,0 +1,28 @@
+package com.example.springjooqapi.warmup;
+
+import com.example.springjooqapi.metrics.RequestCompletion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Times API requests, including their async part, into the warm-up report's first requests
+public class FirstRequestsFilter extends OncePerRequestFilter {
+    private final WarmupReport report;
+
+    public FirstRequestsFilter(WarmupReport report) {
+        this.report = report;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        filterChain.doFilter(request, response);
+
+        RequestCompletion.onComplete(request, () -> report.recordRequest(System.nanoTime() - start));
+    }
+}
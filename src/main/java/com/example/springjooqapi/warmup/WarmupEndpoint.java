@@ -0,0 +1,19 @@
+package com.example.springjooqapi.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+// GET /actuator/warmup: warm-up duration per step and latency of the first requests served
+@Endpoint(id = "warmup")
+public class WarmupEndpoint {
+    private final WarmupReport report;
+
+    public WarmupEndpoint(WarmupReport report) {
+        this.report = report;
+    }
+
+    @ReadOperation
+    public WarmupReport warmup() {
+        return report;
+    }
+}
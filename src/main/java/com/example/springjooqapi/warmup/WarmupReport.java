@@ -0,0 +1,120 @@
+package com.example.springjooqapi.warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Outcome of the startup warm-up: how long each step took on its first (cold) iteration
+ * compared with its last iterations, and the latency of the first real requests served
+ * after readiness, to show what the warm-up saved them.
+ */
+public class WarmupReport {
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED, DISABLED }
+
+    private final AtomicLongArray firstRequestNanos;
+    private final AtomicInteger firstRequestCount = new AtomicInteger();
+    private final List<Step> steps = new ArrayList<>();
+
+    private volatile Status status = Status.PENDING;
+    private volatile Instant startedAt;
+    private volatile long durationMillis;
+    private volatile boolean timedOut;
+    private volatile String failure;
+
+    public WarmupReport(int firstRequestsToRecord) {
+        this.firstRequestNanos = new AtomicLongArray(Math.max(0, firstRequestsToRecord));
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    synchronized void addStep(Step step) {
+        steps.add(step);
+    }
+
+    void timedOut() {
+        timedOut = true;
+    }
+
+    void complete(long durationNanos) {
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        status = Status.COMPLETED;
+    }
+
+    void fail(long durationNanos, String message) {
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        failure = message;
+        status = Status.FAILED;
+    }
+
+    void disable() {
+        status = Status.DISABLED;
+    }
+
+    // Called for every request; only the first few after warm-up are kept, the rest cost one read
+    public void recordRequest(long durationNanos) {
+        if (status == Status.RUNNING || status == Status.PENDING || firstRequestCount.get() >= firstRequestNanos.length()) {
+            return;
+        }
+        int slot = firstRequestCount.getAndIncrement();
+        if (slot < firstRequestNanos.length()) {
+            firstRequestNanos.set(slot, durationNanos);
+        }
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public synchronized List<Step> getSteps() {
+        return List.copyOf(steps);
+    }
+
+    public FirstRequests getFirstRequests() {
+        int count = Math.min(firstRequestCount.get(), firstRequestNanos.length());
+        if (count == 0) {
+            return new FirstRequests(0, 0, 0, 0);
+        }
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            long nanos = firstRequestNanos.get(i);
+            total += nanos;
+            max = Math.max(max, nanos);
+        }
+        return new FirstRequests(count, toMillis(firstRequestNanos.get(0)), toMillis(total / count), toMillis(max));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // coldMillis is the first iteration, warmMillis the mean of the last quarter of iterations
+    public record Step(String name, int iterations, long durationMillis, double coldMillis, double warmMillis) {
+    }
+
+    public record FirstRequests(int count, double firstMillis, double meanMillis, double maxMillis) {
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.springjooqapi.warmup;
+
+import com.example.springjooqapi.dto.ItemRequest;
+import com.example.springjooqapi.dto.ItemResponse;
+import com.example.springjooqapi.dto.LoginRequest;
+import com.example.springjooqapi.dto.MessageResponse;
+import com.example.springjooqapi.security.JwtTokenProvider;
+import com.example.springjooqapi.service.ItemField;
+import com.example.springjooqapi.service.ItemService;
+import com.example.springjooqapi.service.ProfileQuery;
+import com.example.springjooqapi.service.UserProfileService;
+import com.example.springjooqapi.service.UserService;
+import com.example.springjooqapi.sharding.Shard;
+import com.example.springjooqapi.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import org.jooq.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.springjooqapi.jooq.Tables.USER_DIRECTORY;
+
+/**
+ * Warms the node up before it reports ready: Spring Boot only moves readiness to
+ * ACCEPTING_TRAFFIC once application runners have returned. Fills every shard's pool, then
+ * runs the read paths of the hot endpoints, JWT signing and verification and JSON
+ * (de)serialization for a number of iterations so they are JIT-compiled and their lazily
+ * built metadata (jOOQ, Jackson serializers) exists before the first real request.
+ * Everything is read-only; failures are logged and do not stop startup.
+ */
+@Component
+public class WarmupRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final ThreadLocal<Boolean> WARMING_UP = new ThreadLocal<>();
+
+    private final ShardRouter shardRouter;
+    private final ItemService itemService;
+    private final UserProfileService userProfileService;
+    private final UserService userService;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final ObjectMapper objectMapper;
+    private final WarmupReport report;
+    private final boolean enabled;
+    private final int iterations;
+    private final int connections;
+    private final long maxDurationNanos;
+
+    private long deadline;
+
+    public WarmupRunner(
+            ShardRouter shardRouter,
+            ItemService itemService,
+            UserProfileService userProfileService,
+            UserService userService,
+            JwtTokenProvider jwtTokenProvider,
+            ObjectMapper objectMapper,
+            WarmupReport report,
+            @Value("${warmup.enabled:true}") boolean enabled,
+            @Value("${warmup.iterations:200}") int iterations,
+            @Value("${warmup.connections:5}") int connections,
+            @Value("${warmup.max-duration-ms:30000}") long maxDurationMillis) {
+        this.shardRouter = shardRouter;
+        this.itemService = itemService;
+        this.userProfileService = userProfileService;
+        this.userService = userService;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.objectMapper = objectMapper;
+        this.report = report;
+        this.enabled = enabled;
+        this.iterations = Math.max(1, iterations);
+        this.connections = connections;
+        this.maxDurationNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+    }
+
+    // True on the thread running the warm-up; its observations are not recorded or traced
+    public static boolean isWarmingUp() {
+        return WARMING_UP.get() != null;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            report.disable();
+            return;
+        }
+        report.start();
+        long start = System.nanoTime();
+        deadline = start + maxDurationNanos;
+        WARMING_UP.set(Boolean.TRUE);
+        try {
+            warmUp();
+            report.complete(System.nanoTime() - start);
+            log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            report.fail(System.nanoTime() - start, e.getMessage());
+            log.warn("Warm-up failed, starting without it: {}", e.getMessage());
+        } finally {
+            WARMING_UP.remove();
+        }
+    }
+
+    private void warmUp() throws Exception {
+        long poolStart = System.nanoTime();
+        for (Shard shard : shardRouter.shards()) {
+            fillPool(shard);
+        }
+        report.addStep(new WarmupReport.Step("connection-pools", 1,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - poolStart), 0, 0));
+
+        // Any existing user makes the queries follow realistic plans; without one they return nothing
+        var sample = shardRouter.directory().select(USER_DIRECTORY.USER_ID, USER_DIRECTORY.USERNAME)
+                .from(USER_DIRECTORY)
+                .orderBy(USER_DIRECTORY.USER_ID)
+                .limit(1)
+                .fetchOne();
+        Long userId = sample != null ? sample.value1() : -1L;
+        String username = sample != null ? sample.value2() : "warmup";
+
+        List<ItemResponse> items = itemService.getAllItemsForUser(userId);
+        Long itemId = items.isEmpty() ? -1L : items.get(0).getId();
+        List<ItemField> fields = ItemField.parse("id,name,updatedAt");
+
+        step("items.list", () -> itemService.getAllItemsForUser(userId));
+        step("items.get", () -> itemService.getItemById(itemId, userId));
+        step("items.multi-get", () -> itemService.getItemsByIds(userId, List.of(itemId)));
+        step("items.fields", () -> itemService.getItemFields(userId, null, fields));
+        step("items.stats", () -> itemService.getItemStats(userId));
+        step("profile.get", () -> userProfileService.getProfileByUserId(userId, ProfileQuery.FULL));
+        step("user.load", () -> {
+            try {
+                return userService.loadUserByUsername(username);
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        });
+
+        step("jwt.sign-verify", () -> {
+            String token = jwtTokenProvider.generateToken(username);
+            Claims claims = jwtTokenProvider.extractAllClaims(token);
+            return claims.getSubject();
+        });
+
+        var profile = userProfileService.getProfileByUserId(userId, ProfileQuery.FULL).orElse(null);
+        UserDetails user = loadUserOrNull(username);
+        step("json", () -> {
+            objectMapper.writeValueAsBytes(items);
+            objectMapper.writeValueAsBytes(itemService.getItemStats(userId));
+            objectMapper.writeValueAsBytes(new MessageResponse("warm-up"));
+            if (profile != null) {
+                objectMapper.writeValueAsBytes(profile);
+            }
+            if (user != null) {
+                objectMapper.writeValueAsBytes(user.getAuthorities());
+            }
+            objectMapper.readValue("{\"name\":\"warm-up\",\"description\":\"warm-up\"}", ItemRequest.class);
+            return objectMapper.readValue("{\"username\":\"warm-up\",\"password\":\"warm-up\"}", LoginRequest.class);
+        });
+    }
+
+    // Holds the connections at once so the pool has to open them, instead of reusing one
+    private void fillPool(Shard shard) {
+        ConnectionProvider provider = shard.dsl().configuration().connectionProvider();
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                held.add(provider.acquire());
+            }
+        } finally {
+            held.forEach(provider::release);
+        }
+    }
+
+    private UserDetails loadUserOrNull(String username) {
+        try {
+            return userService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void step(String name, WarmupTask task) throws Exception {
+        long stepStart = System.nanoTime();
+        long cold = 0;
+        long[] durations = new long[iterations];
+        int completed = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (System.nanoTime() - deadline > 0) {
+                report.timedOut();
+                break;
+            }
+            long start = System.nanoTime();
+            task.run();
+            durations[i] = System.nanoTime() - start;
+            if (i == 0) {
+                cold = durations[i];
+            }
+            completed++;
+        }
+
+        int tail = Math.max(1, completed / 4);
+        long warmTotal = 0;
+        for (int i = Math.max(0, completed - tail); i < completed; i++) {
+            warmTotal += durations[i];
+        }
+        report.addStep(new WarmupReport.Step(name, completed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stepStart),
+                cold / 1_000_000.0,
+                completed == 0 ? 0 : warmTotal / (double) tail / 1_000_000.0));
+    }
+
+    @FunctionalInterface
+    private interface WarmupTask {
+        Object run() throws Exception;
+    }
+}
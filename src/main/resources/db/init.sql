@@ -13,6 +13,18 @@ CREATE TABLE IF NOT EXISTS users (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- User directory: username/email -> user id and shard. Only the primary's copy is used;
+-- it reserves usernames and emails across shards and allocates user ids
+CREATE SEQUENCE IF NOT EXISTS user_directory_id_seq;
+
+CREATE TABLE IF NOT EXISTS user_directory (
+    user_id BIGINT PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    email VARCHAR(100) UNIQUE NOT NULL,
+    shard_id INTEGER NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Roles table (for future role-based authentication)
 CREATE TABLE IF NOT EXISTS roles (
     id BIGSERIAL PRIMARY KEY,
@@ -44,9 +56,14 @@ CREATE TABLE IF NOT EXISTS items (
     user_id BIGINT NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Incremented by every update; the ETag, checked by conditional updates (If-Match)
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+-- Databases created before the version column existed
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 -- User Profile table
 CREATE TABLE IF NOT EXISTS user_profile (
     id BIGSERIAL PRIMARY KEY,
@@ -59,14 +76,89 @@ CREATE TABLE IF NOT EXISTS user_profile (
     city VARCHAR(100),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+ALTER TABLE user_profile ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Per-user item statistics, kept current by the maintain_user_item_stats trigger on items
+CREATE TABLE IF NOT EXISTS user_item_stats (
+    user_id BIGINT PRIMARY KEY,
+    item_count BIGINT NOT NULL DEFAULT 0,
+    last_modified_at TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Background purges (account deletion, delete-all-items), processed in small chunks.
+-- No foreign key to users: the job outlives the account it deletes
+CREATE TABLE IF NOT EXISTS purge_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    scope VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    max_item_id BIGINT,
+    items_deleted BIGINT NOT NULL DEFAULT 0,
+    lease_expires_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+-- Revoked tokens (logout), by JWT id; rows are kept until the token would have expired anyway
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    jti VARCHAR(36) UNIQUE NOT NULL,
+    user_id BIGINT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- "Revoke all sessions": every token of the user issued at or before revoked_before is rejected
+CREATE TABLE IF NOT EXISTS session_revocations (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    revoked_before TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Change log of items, written by the record_item_change trigger and published with NOTIFY.
+-- Lets SSE clients resume from Last-Event-ID; old rows are pruned by the application
+CREATE TABLE IF NOT EXISTS item_changes (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Audit trail of item, profile and auth mutations, written behind by the application in
+-- multi-row batches (primary only). No foreign key to users: entries outlive the account
+CREATE TABLE IF NOT EXISTS audit_log (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT,
+    action VARCHAR(50) NOT NULL,
+    entity_type VARCHAR(30) NOT NULL,
+    entity_id BIGINT,
+    details VARCHAR(500),
+    occurred_at TIMESTAMP NOT NULL
+);
+
 -- Create indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_items_user_id ON items(user_id);
 CREATE INDEX IF NOT EXISTS idx_user_profile_user_id ON user_profile(user_id);
+CREATE INDEX IF NOT EXISTS idx_user_directory_created_at ON user_directory(created_at);
+CREATE INDEX IF NOT EXISTS idx_user_profile_country_city ON user_profile(country, city);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
+CREATE INDEX IF NOT EXISTS idx_session_revocations_created_at ON session_revocations(created_at);
+CREATE INDEX IF NOT EXISTS idx_purge_jobs_active ON purge_jobs(id) WHERE status <> 'DONE';
+CREATE INDEX IF NOT EXISTS idx_purge_jobs_user_id ON purge_jobs(user_id);
+CREATE INDEX IF NOT EXISTS idx_item_changes_user_id_id ON item_changes(user_id, id);
+CREATE INDEX IF NOT EXISTS idx_item_changes_changed_at ON item_changes(changed_at);
+CREATE INDEX IF NOT EXISTS idx_audit_log_user_id_occurred_at ON audit_log(user_id, occurred_at);
 
 -- Create a function to automatically update the updated_at timestamp
 CREATE OR REPLACE FUNCTION update_updated_at_column()
@@ -86,3 +178,77 @@ CREATE TRIGGER update_items_updated_at BEFORE UPDATE ON items
 
 CREATE TRIGGER update_user_profile_updated_at BEFORE UPDATE ON user_profile
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+-- Keep user_item_stats in step with items, in the same transaction as the item change
+CREATE OR REPLACE FUNCTION maintain_user_item_stats()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.user_id <> OLD.user_id) THEN
+        INSERT INTO user_item_stats (user_id, item_count, last_modified_at)
+        VALUES (NEW.user_id, 1, CURRENT_TIMESTAMP)
+        ON CONFLICT (user_id) DO UPDATE
+            SET item_count = user_item_stats.item_count + 1,
+                last_modified_at = CURRENT_TIMESTAMP;
+    ELSIF TG_OP = 'UPDATE' THEN
+        UPDATE user_item_stats
+            SET last_modified_at = CURRENT_TIMESTAMP
+            WHERE user_id = NEW.user_id;
+    END IF;
+
+    -- UPDATE only: during ON DELETE CASCADE from users the stats row may already be gone
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND NEW.user_id <> OLD.user_id) THEN
+        UPDATE user_item_stats
+            SET item_count = GREATEST(item_count - 1, 0),
+                last_modified_at = CURRENT_TIMESTAMP
+            WHERE user_id = OLD.user_id;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER maintain_user_item_stats AFTER INSERT OR UPDATE OR DELETE ON items
+    FOR EACH ROW EXECUTE FUNCTION maintain_user_item_stats();
+
+-- Log every item change and notify listening application nodes; NOTIFY is delivered on commit
+CREATE OR REPLACE FUNCTION record_item_change()
+RETURNS TRIGGER AS $$
+DECLARE
+    change item_changes%ROWTYPE;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO item_changes (user_id, item_id, operation)
+        VALUES (OLD.user_id, OLD.id, TG_OP)
+        RETURNING * INTO change;
+    ELSE
+        INSERT INTO item_changes (user_id, item_id, operation)
+        VALUES (NEW.user_id, NEW.id, TG_OP)
+        RETURNING * INTO change;
+    END IF;
+
+    PERFORM pg_notify('item_changes', json_build_object(
+        'changeId', change.id,
+        'userId', change.user_id,
+        'itemId', change.item_id,
+        'operation', change.operation,
+        'changedAt', change.changed_at
+    )::text);
+
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER record_item_change AFTER INSERT OR UPDATE OR DELETE ON items
+    FOR EACH ROW EXECUTE FUNCTION record_item_change();
+
+-- Register users that existed before the directory (unsharded installations) on shard 0
+INSERT INTO user_directory (user_id, username, email, shard_id)
+SELECT id, username, email, 0 FROM users
+ON CONFLICT DO NOTHING;
+
+SELECT setval('user_directory_id_seq', GREATEST((SELECT MAX(user_id) FROM user_directory), 1));
+
+-- Backfill statistics for items that existed before the trigger
+INSERT INTO user_item_stats (user_id, item_count, last_modified_at)
+SELECT user_id, COUNT(*), MAX(updated_at) FROM items GROUP BY user_id
+ON CONFLICT (user_id) DO NOTHING;
@@ -0,0 +1,258 @@
+package com.example.springjooqapi.audit;
+
+import com.example.springjooqapi.sharding.Shard;
+import com.example.springjooqapi.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogTest {
+    // Columns per audit_log row in the multi-row INSERT
+    private static final int BIND_VALUES_PER_EVENT = 6;
+
+    private final AtomicInteger insertedRows = new AtomicInteger();
+    private final AtomicInteger inserts = new AtomicInteger();
+    // Inserts issued by the recording thread rather than the audit-writer
+    private final AtomicInteger synchronousInserts = new AtomicInteger();
+    private final CountDownLatch writerStalled = new CountDownLatch(1);
+    // When set, the writer's inserts block until it is counted down
+    private volatile CountDownLatch writerRelease;
+    private MeterRegistry registry;
+    private ShardRouter shardRouter;
+
+    @BeforeEach
+    void setUp() {
+        MockConnection connection = new MockConnection(context -> {
+            int rows = context.bindings().length / BIND_VALUES_PER_EVENT;
+            if (Thread.currentThread().getName().equals("audit-writer")) {
+                stallWriter();
+            } else {
+                synchronousInserts.incrementAndGet();
+            }
+            inserts.incrementAndGet();
+            insertedRows.addAndGet(rows);
+            return new MockResult[]{new MockResult(rows)};
+        });
+        Shard primary = new Shard(0, DSL.using(connection, SQLDialect.POSTGRES), null, null, null);
+        shardRouter = new ShardRouter(List.of(primary), 1, 1, List.of());
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseWriter();
+        shardRouter.shutdown();
+    }
+
+    @Test
+    void stopFlushesBufferedEvents() {
+        // Neither the batch size nor the interval is reached: only stop() can write these
+        AuditLog auditLog = auditLog(1_000, 60_000);
+        auditLog.start();
+        for (long i = 0; i < 10; i++) {
+            auditLog.record(i, "item.create", "item", i, null);
+        }
+        assertEquals(0, insertedRows.get());
+
+        auditLog.stop();
+
+        assertEquals(10, insertedRows.get());
+        assertEquals(1, inserts.get());
+    }
+
+    @Test
+    void eventsRecordedAfterStopAreWrittenDirectly() {
+        AuditLog auditLog = auditLog(1_000, 60_000);
+        auditLog.start();
+        auditLog.stop();
+
+        auditLog.record(1L, "auth.logout", "user", 1L, null);
+
+        assertEquals(1, insertedRows.get());
+    }
+
+    @Test
+    void fullBatchIsWrittenWithoutWaitingForTheInterval() throws Exception {
+        AuditLog auditLog = auditLog(5, 60_000);
+        auditLog.start();
+        for (long i = 0; i < 5; i++) {
+            auditLog.record(i, "item.update", "item", i, "version=1");
+        }
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (insertedRows.get() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(5, insertedRows.get());
+        auditLog.stop();
+    }
+
+    @Test
+    void noEventIsLostWhenStoppingWhileProducersRecord() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        AuditLog auditLog = auditLog(100, 10);
+        auditLog.start();
+
+        CountDownLatch started = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long userId = p;
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                for (long i = 0; i < perProducer; i++) {
+                    auditLog.record(userId, "item.create", "item", i, null);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        started.await();
+        auditLog.stop();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * perProducer, insertedRows.get());
+    }
+
+    @Test
+    void dropDiscardsEventsWhileTheWriterIsStalled() throws Exception {
+        AuditLog auditLog = stalledWithFullRing(AuditOverflowPolicy.DROP, 50);
+
+        for (long i = 0; i < 3; i++) {
+            auditLog.record(i, "item.create", "item", i, null);
+        }
+        assertEquals(3, count("dropped"));
+        assertEquals(0, count("written"));
+        assertEquals(0, synchronousInserts.get());
+
+        releaseWriter();
+        auditLog.stop();
+
+        assertEquals(3, count("enqueued"));
+        assertEquals(3, count("written"));
+        assertEquals(3, insertedRows.get());
+        assertEquals(0, synchronousInserts.get());
+    }
+
+    @Test
+    void blockDropsEventsOnceTheTimeoutPasses() throws Exception {
+        AuditLog auditLog = stalledWithFullRing(AuditOverflowPolicy.BLOCK, 20);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < 3; i++) {
+            auditLog.record(i, "item.create", "item", i, null);
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(3 * 20));
+        assertEquals(3, count("dropped"));
+        assertEquals(0, count("written"));
+
+        releaseWriter();
+        auditLog.stop();
+
+        assertEquals(3, count("enqueued"));
+        assertEquals(3, count("written"));
+        assertEquals(0, synchronousInserts.get());
+    }
+
+    @Test
+    void blockEnqueuesOnceTheWriterFreesSpace() throws Exception {
+        AuditLog auditLog = stalledWithFullRing(AuditOverflowPolicy.BLOCK, 10_000);
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            releaseWriter();
+        });
+        releaser.setDaemon(true);
+        releaser.start();
+        auditLog.record(3L, "item.create", "item", 3L, null);
+        auditLog.stop();
+
+        assertEquals(0, count("dropped"));
+        assertEquals(4, count("enqueued"));
+        assertEquals(4, count("written"));
+        assertEquals(0, synchronousInserts.get());
+    }
+
+    @Test
+    void syncWritesOnTheCallerWhileTheWriterIsStalled() throws Exception {
+        AuditLog auditLog = stalledWithFullRing(AuditOverflowPolicy.SYNC, 50);
+
+        for (long i = 0; i < 3; i++) {
+            auditLog.record(i, "item.create", "item", i, null);
+        }
+        assertEquals(0, count("dropped"));
+        assertEquals(3, count("written"));
+        assertEquals(3, synchronousInserts.get());
+
+        releaseWriter();
+        auditLog.stop();
+
+        assertEquals(3, count("enqueued"));
+        assertEquals(6, count("written"));
+        assertEquals(6, insertedRows.get());
+        assertEquals(3, synchronousInserts.get());
+    }
+
+    // A two-slot ring whose writer is stuck inserting one event while the two behind it fill the ring
+    private AuditLog stalledWithFullRing(AuditOverflowPolicy policy, long blockTimeoutMillis) throws Exception {
+        writerRelease = new CountDownLatch(1);
+        AuditLog auditLog = new AuditLog(shardRouter, registry, true, 2, 1, 60_000, policy, blockTimeoutMillis, 10_000);
+        auditLog.start();
+        auditLog.record(0L, "item.create", "item", 0L, null);
+        assertTrue(writerStalled.await(5, TimeUnit.SECONDS));
+        auditLog.record(1L, "item.create", "item", 1L, null);
+        auditLog.record(2L, "item.create", "item", 2L, null);
+        assertEquals(3, count("enqueued"));
+        return auditLog;
+    }
+
+    private void stallWriter() {
+        CountDownLatch release = writerRelease;
+        if (release == null) {
+            return;
+        }
+        writerStalled.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void releaseWriter() {
+        CountDownLatch release = writerRelease;
+        if (release != null) {
+            release.countDown();
+        }
+    }
+
+    private double count(String outcome) {
+        return registry.counter("audit.events", "outcome", outcome).count();
+    }
+
+    private AuditLog auditLog(int batchSize, long flushIntervalMillis) {
+        return new AuditLog(shardRouter, registry, true, 1 << 16, batchSize, flushIntervalMillis,
+                AuditOverflowPolicy.DROP, 50, 10_000);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.springjooqapi.metrics;
+
+import com.example.springjooqapi.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// query-budget.enforce=true: a handler issuing more statements than its @QueryBudget fails
+class QueryBudgetEnforcementTest {
+    private final AtomicInteger executed = new AtomicInteger();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockConnection connection = new MockConnection(context -> {
+            executed.incrementAndGet();
+            DSLContext results = DSL.using(SQLDialect.POSTGRES);
+            return new MockResult[]{new MockResult(0, results.newResult(DSL.field("one", Integer.class)))};
+        });
+        DSLContext dsl = DSL.using(new DefaultConfiguration()
+                .set(connection)
+                .set(SQLDialect.POSTGRES)
+                .set(new DefaultExecuteListenerProvider(new QueryStatsListener(5, true))));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new BudgetedController(dsl))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(new QueryStatsFilter(new SimpleMeterRegistry(), new SlowRequestLog(10, 60_000)))
+                .addInterceptors(new QueryBudgetInterceptor())
+                .build();
+    }
+
+    @Test
+    void handlerWithinBudgetSucceeds() throws Exception {
+        mockMvc.perform(get("/within"))
+                .andExpect(status().isOk());
+
+        assertEquals(2, executed.get());
+    }
+
+    @Test
+    void handlerOverBudgetFails() throws Exception {
+        mockMvc.perform(get("/over"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message", containsString("Query budget of 2 statements exceeded")));
+
+        // The statement over the budget is refused before it reaches the database
+        assertEquals(2, executed.get());
+    }
+
+    @RestController
+    static class BudgetedController {
+        private final DSLContext dsl;
+
+        BudgetedController(DSLContext dsl) {
+            this.dsl = dsl;
+        }
+
+        @GetMapping("/within")
+        @QueryBudget(2)
+        public String within() {
+            query(2);
+            return "ok";
+        }
+
+        @GetMapping("/over")
+        @QueryBudget(2)
+        public String over() {
+            query(3);
+            return "ok";
+        }
+
+        private void query(int statements) {
+            for (int i = 0; i < statements; i++) {
+                dsl.selectOne().fetch();
+            }
+        }
+    }
+}
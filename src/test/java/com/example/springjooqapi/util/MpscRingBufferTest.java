@@ -0,0 +1,138 @@
+package com.example.springjooqapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    @Test
+    void concurrentProducersWithOneDrainerLoseAndDuplicateNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRingBuffer<Long> buffer = new MpscRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        // Full: let the drainer run, also on a single CPU
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        // Each producer's elements must come out in the order it offered them
+        long[] lastFromProducer = new long[producers];
+        Arrays.fill(lastFromProducer, -1);
+        int[] duplicates = new int[1];
+        int[] outOfOrder = new int[1];
+
+        start.countDown();
+        int received = 0;
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (received < seen.length && System.nanoTime() < deadline) {
+            int drained = buffer.drain(value -> {
+                int index = value.intValue();
+                if (seen[index]) {
+                    duplicates[0]++;
+                }
+                seen[index] = true;
+                int producer = index / perProducer;
+                if (value <= lastFromProducer[producer]) {
+                    outOfOrder[0]++;
+                }
+                lastFromProducer[producer] = value;
+            }, 16);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            received += drained;
+        }
+        for (Thread thread : threads) {
+            thread.join(1_000);
+            assertFalse(thread.isAlive());
+        }
+
+        assertEquals(seen.length, received);
+        assertEquals(0, duplicates[0]);
+        assertEquals(0, outOfOrder[0]);
+        for (boolean value : seen) {
+            assertTrue(value);
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void offerReturnsFalseWhenFull() {
+        // Rounded up to the next power of two
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, buffer.drain(drained::add, 1));
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+
+        buffer.drain(drained::add, Integer.MAX_VALUE);
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+    }
+
+    @Test
+    void sequencesWrapAroundTheRing() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        // Uneven batches so the head and tail land on every slot many times over
+        for (int round = 0; round < 1_000; round++) {
+            int count = 1 + round % 4;
+            for (int i = 0; i < count; i++) {
+                assertTrue(buffer.offer(next + i));
+            }
+            assertEquals(count, buffer.size());
+            drained.clear();
+            assertEquals(count, buffer.drain(drained::add, Integer.MAX_VALUE));
+            for (int i = 0; i < count; i++) {
+                assertEquals(next + i, drained.get(i));
+            }
+            next += count;
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void drainStopsAtLimit() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(2, buffer.size());
+    }
+}
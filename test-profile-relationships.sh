@@ -44,8 +44,19 @@ echo ""
 curl -s -X GET http://localhost:8080/api/profile \
   -H "Authorization: Bearer $TOKEN" | python3 -m json.tool
 
+echo ""
+echo "🪶 Fetching only the profile header (no user join, no items, itemCount from stats)..."
+curl -s -X GET "http://localhost:8080/api/profile?include=" \
+  -H "Authorization: Bearer $TOKEN" | python3 -m json.tool
+
+echo ""
+echo "📦 Fetching the profile with its 5 most recent items..."
+curl -s -X GET "http://localhost:8080/api/profile?include=items&items.limit=5&items.sort=createdAt,desc" \
+  -H "Authorization: Bearer $TOKEN" | python3 -m json.tool
+
 echo ""
 echo "✅ Done! Notice how the response includes:"
 echo "   1. Profile data (bio, phone, etc.)"
 echo "   2. Nested 'user' object with user details"
 echo "   3. Array of 'items' belonging to that user"
+echo "   4. 'itemCount' even when items are not loaded"
@@ -0,0 +1,48 @@
+#!/bin/bash
+
+# Registers a few users against an application started with two extra shards and shows
+# where each landed. Start the databases with: docker-compose --profile sharding up -d
+# and the application with the SHARDING_SHARDS_* variables from the README.
+
+API_URL=http://localhost:8080
+RUN_ID=$(date +%s)
+
+echo "=== Testing user sharding ==="
+echo ""
+
+for i in 1 2 3 4 5 6; do
+  USERNAME="shard${RUN_ID}u${i}"
+  curl -s -o /dev/null -X POST ${API_URL}/api/auth/register \
+    -H "Content-Type: application/json" \
+    -d "{
+      \"username\": \"${USERNAME}\",
+      \"email\": \"${USERNAME}@example.com\",
+      \"password\": \"password123\",
+      \"firstName\": \"Shard\",
+      \"lastName\": \"User${i}\"
+    }"
+
+  RESPONSE=$(curl -s -X POST ${API_URL}/api/auth/login \
+    -H "Content-Type: application/json" \
+    -d "{\"username\": \"${USERNAME}\", \"password\": \"password123\"}")
+  TOKEN=$(echo $RESPONSE | grep -o '"token":"[^"]*' | sed 's/"token":"//')
+
+  curl -s -o /dev/null -X POST ${API_URL}/api/items \
+    -H "Authorization: Bearer $TOKEN" \
+    -H "Content-Type: application/json" \
+    -d '{"name": "Sharded item", "description": "Lives on the user'"'"'s shard"}'
+  echo "✅ Registered ${USERNAME} and created an item"
+done
+echo ""
+
+echo "📒 Directory (primary):"
+docker exec api-postgres psql -U apiuser -d apidb -c \
+  "SELECT shard_id, COUNT(*) AS users FROM user_directory WHERE username LIKE 'shard${RUN_ID}%' GROUP BY shard_id ORDER BY shard_id;"
+
+for CONTAINER in api-postgres api-postgres-shard1 api-postgres-shard2; do
+  echo "🗄️  ${CONTAINER}:"
+  docker exec ${CONTAINER} psql -U apiuser -d apidb -t -c \
+    "SELECT COUNT(*) || ' users, ' || (SELECT COUNT(*) FROM items i JOIN users u ON u.id = i.user_id WHERE u.username LIKE 'shard${RUN_ID}%') || ' items' FROM users WHERE username LIKE 'shard${RUN_ID}%';"
+done
+
+echo "=== Done ==="